@@ -3,10 +3,17 @@
 layout (location=0) in vec3 aPos;
 layout (location=1) in vec4 aColor;
 layout (location=2) in vec2 aTexCoords;
+#ifdef PACKED
+layout (location=3) in int aTexId;
+#else
 layout (location=3) in float aTexId;
+#endif
 
-uniform mat4 uProjection;
-uniform mat4 uView;
+// written once per frame by CameraUniforms
+layout (std140) uniform Camera {
+    mat4 uProjection;
+    mat4 uView;
+};
 
 out vec4 fColor;
 out vec2 fTexCoords;
@@ -16,7 +23,7 @@ void main()
 {
     fColor = aColor;
     fTexCoords = aTexCoords;
-    fTexId = aTexId;
+    fTexId = float(aTexId);
     gl_Position = uProjection * uView * vec4(aPos, 1.0);
 }
 
@@ -27,15 +34,24 @@ in vec4 fColor;
 in vec2 fTexCoords;
 in float fTexId;
 
+#ifdef TEXTURE_ARRAY
+uniform sampler2DArray uTextureArray;
+#else
 uniform sampler2D uTextures[8];
+#endif
 
 out vec4 color;
 
 void main()
 {
     if(fTexId > 0) {
+#ifdef TEXTURE_ARRAY
+        // tex id is layer + 1
+        color = fColor * texture(uTextureArray, vec3(fTexCoords, fTexId - 1.0));
+#else
         int id = int(fTexId);
         color = fColor * texture(uTextures[id], fTexCoords);
+#endif
     } else {
         color = fColor;
     }
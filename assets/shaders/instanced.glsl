@@ -0,0 +1,56 @@
+#type vertex
+#version 410
+layout (location=0) in vec2 aCorner;
+layout (location=1) in vec2 aPos;
+layout (location=2) in vec2 aScale;
+layout (location=3) in vec4 aUvRect;
+layout (location=4) in vec4 aColor;
+layout (location=5) in float aTexId;
+
+// written once per frame by CameraUniforms
+layout (std140) uniform Camera {
+    mat4 uProjection;
+    mat4 uView;
+};
+
+out vec4 fColor;
+out vec2 fTexCoords;
+out float  fTexId;
+
+void main()
+{
+    fColor = aColor;
+    fTexCoords = mix(aUvRect.xy, aUvRect.zw, aCorner);
+    fTexId = aTexId;
+    gl_Position = uProjection * uView * vec4(aPos + aCorner * aScale, 0.0, 1.0);
+}
+
+#type fragment
+#version 410
+
+in vec4 fColor;
+in vec2 fTexCoords;
+in float fTexId;
+
+#ifdef TEXTURE_ARRAY
+uniform sampler2DArray uTextureArray;
+#else
+uniform sampler2D uTextures[8];
+#endif
+
+out vec4 color;
+
+void main()
+{
+    if(fTexId > 0) {
+#ifdef TEXTURE_ARRAY
+        // tex id is layer + 1
+        color = fColor * texture(uTextureArray, vec3(fTexCoords, fTexId - 1.0));
+#else
+        int id = int(fTexId);
+        color = fColor * texture(uTextures[id], fTexCoords);
+#endif
+    } else {
+        color = fColor;
+    }
+}
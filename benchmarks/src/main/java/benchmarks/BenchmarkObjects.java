@@ -0,0 +1,45 @@
+package benchmarks;
+
+import components.Sprite;
+import components.SpriteRenderer;
+import domo.GameObject;
+import domo.Transform;
+import org.joml.Vector2f;
+import org.lwjgl.BufferUtils;
+import renderer.Graphics;
+import renderer.HeadlessDevice;
+import renderer.Texture;
+
+/*
+* Builds objects shared by benchmarks. Everything runs on HeadlessDevice, there is no GL context.
+* */
+final class BenchmarkObjects {
+    static final float SPRITE_SIZE = 32.0f;
+
+    private BenchmarkObjects() {
+    }
+
+    static HeadlessDevice useHeadlessDevice() {
+        HeadlessDevice device = new HeadlessDevice();
+        Graphics.setDevice(device);
+        return device;
+    }
+
+    /*
+    * Empty RGBA texture, nothing is read from disk.
+    * */
+    static Texture texture(String name, int width, int height) {
+        return new Texture(name, width, height, BufferUtils.createByteBuffer(width * height * 4));
+    }
+
+    /*
+    * Started sprite, ready to be added to renderer.
+    * */
+    static SpriteRenderer sprite(float x, float y, int zIndex, Sprite sprite) {
+        GameObject go = new GameObject("benchmark", new Transform(new Vector2f(x, y), new Vector2f(SPRITE_SIZE, SPRITE_SIZE)), zIndex);
+        SpriteRenderer spr = new SpriteRenderer(sprite);
+        go.addComponent(spr);
+        go.start();
+        return spr;
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import domo.Camera;
+import org.joml.Matrix4fc;
+import org.joml.Vector2f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Camera matrices, asked for every frame by renderer.
+* */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CameraBenchmark {
+    private Camera camera;
+    private Vector2f point = new Vector2f();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        camera = new Camera(new Vector2f(-250, 0));
+    }
+
+    @Benchmark
+    public Matrix4fc getViewMatrix() {
+        return camera.getViewMatrix();
+    }
+
+    /*
+    * Camera following a player, position changes between calls.
+    * */
+    @Benchmark
+    public Matrix4fc getViewMatrixMoving() {
+        camera.translate(0.5f, 0.0f);
+        return camera.getViewMatrix();
+    }
+
+    @Benchmark
+    public Matrix4fc getProjectionMatrix() {
+        return camera.getProjectionMatrix();
+    }
+
+    /*
+    * Mouse picking, cursor to world point through cached inverse matrix.
+    * */
+    @Benchmark
+    public Vector2f screenToWorld() {
+        return camera.screenToWorld(960.0f, 540.0f, 1920.0f, 1080.0f, point);
+    }
+}
@@ -0,0 +1,83 @@
+package benchmarks;
+
+import components.Sprite;
+import components.SpriteRenderer;
+import domo.Component;
+import domo.ComponentHandle;
+import domo.GameObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Component lookup on game object with several components, first and last one in the list, and through cached handle.
+* */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetComponentBenchmark {
+    private GameObject gameObject;
+    private ComponentHandle<SpriteRenderer> spriteHandle;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkObjects.useHeadlessDevice();
+        gameObject = new GameObject("components");
+        gameObject.addComponent(new First());
+        gameObject.addComponent(new Second());
+        gameObject.addComponent(new Third());
+        gameObject.addComponent(new Fourth());
+        gameObject.addComponent(new SpriteRenderer(new Sprite(null)));
+        spriteHandle = gameObject.handle(SpriteRenderer.class);
+    }
+
+    @Benchmark
+    public First getFirstComponent() {
+        return gameObject.getComponent(First.class);
+    }
+
+    @Benchmark
+    public SpriteRenderer getLastComponent() {
+        return gameObject.getComponent(SpriteRenderer.class);
+    }
+
+    @Benchmark
+    public SpriteRenderer getThroughHandle() {
+        return spriteHandle.get();
+    }
+
+    @Benchmark
+    public Component getMissingComponent() {
+        return gameObject.getComponent(Missing.class);
+    }
+
+    public static class First extends Component {
+        @Override
+        public void update(float dt) {
+        }
+    }
+
+    public static class Second extends First {
+    }
+
+    public static class Third extends Component {
+        @Override
+        public void update(float dt) {
+        }
+    }
+
+    public static class Fourth extends Component {
+        @Override
+        public void update(float dt) {
+        }
+    }
+
+    public static class Missing extends Component {
+        @Override
+        public void update(float dt) {
+        }
+    }
+}
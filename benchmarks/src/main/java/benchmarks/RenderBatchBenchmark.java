@@ -0,0 +1,65 @@
+package benchmarks;
+
+import components.Sprite;
+import org.openjdk.jmh.annotations.*;
+import renderer.RenderBatch;
+import renderer.StreamingMode;
+import renderer.VertexLayout;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Vertex building of one full batch, the CPU part of rebuffer() for sprites that moved.
+* */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBatchBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"SPRITE_FLOAT", "SPRITE_PACKED"})
+    public String layout;
+
+    private VertexBatch batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkObjects.useHeadlessDevice();
+        VertexLayout vertexLayout = layout.equals("SPRITE_PACKED") ? VertexLayout.SPRITE_PACKED : VertexLayout.SPRITE_FLOAT;
+        batch = new VertexBatch(vertexLayout);
+        batch.start();
+        Sprite sprite = new Sprite(BenchmarkObjects.texture("batch", 256, 256));
+        for (int i=0; i< BATCH_SIZE; i++) {
+            batch.addSprite(BenchmarkObjects.sprite(i * 8.0f, i * 4.0f, 0, sprite));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batch.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void loadVertexProperties() {
+        for (int i=0; i< BATCH_SIZE; i++) {
+            batch.load(i);
+        }
+    }
+
+    /*
+    * loadVertexProperties() is protected, subclass lets benchmark call it.
+    * */
+    static class VertexBatch extends RenderBatch {
+        VertexBatch(VertexLayout layout) {
+            super(BATCH_SIZE, 0, StreamingMode.SUB_DATA, layout);
+        }
+
+        void load(int index) {
+            loadVertexProperties(index);
+        }
+    }
+}
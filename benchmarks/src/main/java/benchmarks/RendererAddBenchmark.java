@@ -0,0 +1,59 @@
+package benchmarks;
+
+import components.Sprite;
+import components.SpriteRenderer;
+import org.openjdk.jmh.annotations.*;
+import renderer.Renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+* Adding whole scene of sprites to a new renderer one by one: batch lookup by z-index and texture,
+* batch creation and spatial grid insert.
+* */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RendererAddBenchmark {
+    private static final int TEXTURES = 8;
+
+    @Param({"10000", "50000"})
+    public int sprites;
+
+    @Param({"1", "64"})
+    public int zIndexes;
+
+    private List<SpriteRenderer> spriteRenderers;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkObjects.useHeadlessDevice();
+        Sprite[] textured = new Sprite[TEXTURES];
+        for (int i=0; i< TEXTURES; i++) {
+            textured[i] = new Sprite(BenchmarkObjects.texture("texture" + i, 64, 64));
+        }
+
+        spriteRenderers = new ArrayList<>(sprites);
+        int columns = (int)Math.sqrt(sprites);
+        for (int i=0; i< sprites; i++) {
+            float x = (i % columns) * BenchmarkObjects.SPRITE_SIZE;
+            float y = (i / columns) * BenchmarkObjects.SPRITE_SIZE;
+            spriteRenderers.add(BenchmarkObjects.sprite(x, y, i % zIndexes, textured[i % TEXTURES]));
+        }
+    }
+
+    @Benchmark
+    public Renderer add() {
+        Renderer renderer = new Renderer();
+        for (int i=0; i< spriteRenderers.size(); i++) {
+            SpriteRenderer spr = spriteRenderers.get(i);
+            renderer.add(spr, spr.gameObject.zIndex(), spr.gameObject.isStatic());
+        }
+        return renderer;
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import domo.GameObject;
+import domo.SceneGraph;
+import domo.Transform;
+import domo.TransformStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Moving platform with attached tiles in a scene full of other objects. Moving the platform through scene graph
+* costs only the platform's subtree whatever the scene size is. That is about 1.5 to 2 times as much as game code
+* moving the tiles one by one, every child's world transform is set from parent and local transform.
+* */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneGraphBenchmark {
+    private static final int TILES = 200;
+
+    @Param({"1000", "10000"})
+    public int otherObjects;
+
+    private SceneGraph graph;
+    private GameObject platform;
+    private GameObject[] tiles;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        TransformStore store = new TransformStore();
+        graph = new SceneGraph();
+        platform = add(store, 0, 0);
+        tiles = new GameObject[TILES];
+        for (int i=0; i< TILES; i++) {
+            tiles[i] = add(store, i * BenchmarkObjects.SPRITE_SIZE, BenchmarkObjects.SPRITE_SIZE);
+            tiles[i].setParent(platform);
+        }
+        for (int i=0; i< otherObjects; i++) {
+            add(store, i, -BenchmarkObjects.SPRITE_SIZE);
+        }
+    }
+
+    private GameObject add(TransformStore store, float x, float y) {
+        GameObject go = new GameObject("benchmark",
+                new Transform(x, y, BenchmarkObjects.SPRITE_SIZE, BenchmarkObjects.SPRITE_SIZE), 0);
+        go.transform.attach(store);
+        graph.add(go);
+        return go;
+    }
+
+    @Benchmark
+    public int movePlatform() {
+        platform.transform.translate(1.0f, 0.0f);
+        return graph.update();
+    }
+
+    /*
+    * Without hierarchy, game code moves every tile itself.
+    * */
+    @Benchmark
+    public float moveOneByOne() {
+        for (int i=0; i< TILES; i++) {
+            tiles[i].transform.translate(1.0f, 0.0f);
+        }
+        return tiles[0].transform.getX();
+    }
+}
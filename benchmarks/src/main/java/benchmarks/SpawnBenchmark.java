@@ -0,0 +1,89 @@
+package benchmarks;
+
+import components.SpriteRenderer;
+import domo.Camera;
+import domo.GameObject;
+import domo.Prefab;
+import domo.Scene;
+import domo.Transform;
+import org.joml.Vector2f;
+import org.joml.Vector4f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Wave of projectiles spawned and despawned every tick, through scene pool or by adding and removing game objects.
+* Each invocation is one tick with a published and applied snapshot, so renderer work is included.
+* */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnBenchmark {
+    private static final int WAVE = 100;
+
+    private static final Prefab PROJECTILE = () -> {
+        GameObject go = new GameObject("projectile",
+                new Transform(0, 0, BenchmarkObjects.SPRITE_SIZE, BenchmarkObjects.SPRITE_SIZE), 0);
+        go.addComponent(new SpriteRenderer(new Vector4f(1, 1, 1, 1)));
+        return go;
+    };
+
+    private static class SpawnScene extends Scene {
+        SpawnScene() {
+            camera = new Camera(new Vector2f(0, 0));
+        }
+
+        @Override
+        public void update(float dt) {
+        }
+    }
+
+    private Scene scene;
+    private GameObject[] wave = new GameObject[WAVE];
+    private long tickTime;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkObjects.useHeadlessDevice();
+        scene = new SpawnScene();
+        scene.init();
+        scene.start();
+    }
+
+    @Benchmark
+    public int pooled() {
+        for (int i=0; i< WAVE; i++) {
+            wave[i] = scene.acquire(PROJECTILE);
+            wave[i].transform.setPosition(i * BenchmarkObjects.SPRITE_SIZE, 0);
+        }
+        tick();
+        for (int i=0; i< WAVE; i++) {
+            scene.release(wave[i]);
+        }
+        return scene.renderer().getNumBatches();
+    }
+
+    @Benchmark
+    public int addAndRemove() {
+        for (int i=0; i< WAVE; i++) {
+            wave[i] = PROJECTILE.create();
+            wave[i].transform.setPosition(i * BenchmarkObjects.SPRITE_SIZE, 0);
+            scene.addGameObjectToScene(wave[i]);
+        }
+        tick();
+        for (int i=0; i< WAVE; i++) {
+            scene.removeGameObjectFromScene(wave[i]);
+        }
+        return scene.renderer().getNumBatches();
+    }
+
+    private void tick() {
+        scene.publishSnapshot(tickTime += 16_666_667L);
+        scene.applySnapshot();
+        scene.render();
+    }
+}
@@ -0,0 +1,37 @@
+package benchmarks;
+
+import components.SpriteSheet;
+import org.openjdk.jmh.annotations.*;
+import renderer.Texture;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Cutting sprite sheet texture into sprites.
+* */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteSheetBenchmark {
+    private static final int SPRITE_SIZE = 16;
+
+    @Param({"26", "1024"})
+    public int numSprites;
+
+    private Texture texture;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkObjects.useHeadlessDevice();
+        // 32 x 32 sprites fit in
+        texture = BenchmarkObjects.texture("spritesheet", 32 * SPRITE_SIZE, 32 * SPRITE_SIZE);
+    }
+
+    @Benchmark
+    public SpriteSheet create() {
+        return new SpriteSheet(texture, SPRITE_SIZE, SPRITE_SIZE, numSprites, 0);
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import domo.Transform;
+import domo.TransformStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+* Finding moved transforms at the end of a tick, the way Scene.publishSnapshot() goes over its TransformStore,
+* with given share of them moving every tick.
+* */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformChangeBenchmark {
+    private static final int TRANSFORMS = 10000;
+
+    @Param({"0", "10", "100"})
+    public int movingPercent;
+
+    private TransformStore store;
+    private Transform[] transforms;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        store = new TransformStore();
+        transforms = new Transform[TRANSFORMS];
+        for (int i=0; i< TRANSFORMS; i++) {
+            transforms[i] = new Transform(i, i, BenchmarkObjects.SPRITE_SIZE, BenchmarkObjects.SPRITE_SIZE);
+            transforms[i].attach(store);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRANSFORMS)
+    public int findChanged() {
+        for (int i=0; i< TRANSFORMS; i++) {
+            if (i % 100 < movingPercent) {
+                transforms[i].translate(1.0f, 0.0f);
+            }
+        }
+        int changed = 0;
+        for (int id=0; id< store.size(); id++) {
+            if (store.takeChanged(id)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
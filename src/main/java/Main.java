@@ -1,8 +1,25 @@
+import domo.FramePacing;
 import domo.Window;
 
 public class Main {
     public static void main(String[] args){
         Window window = Window.get();
+        for (String arg : args) {
+            if (arg.equals("--threaded")) {
+                // runs game logic and rendering on separate threads
+                window.setThreaded(true);
+            } else if (arg.startsWith("--tick-rate=")) {
+                // game logic updates per second, 60 by default
+                window.setTickRate(Integer.parseInt(arg.substring("--tick-rate=".length())));
+            } else if (arg.startsWith("--fps=")) {
+                // v-sync off, frame rate limited by sleeping
+                window.setFramePacing(FramePacing.TARGET_FPS, Integer.parseInt(arg.substring("--fps=".length())));
+            } else if (arg.equals("--uncapped")) {
+                window.setFramePacing(FramePacing.UNCAPPED, 0);
+            } else if (arg.equals("--no-interpolation")) {
+                window.setInterpolation(false);
+            }
+        }
         window.run();
     }
 }
@@ -1,11 +1,15 @@
 package components;
 
 import domo.Component;
+import domo.ComponentHandle;
 
 public class FontRenderer extends Component {
+    private ComponentHandle<SpriteRenderer> sprite;
+
     @Override
     public void start() {
-        if(gameObject.getComponent(SpriteRenderer.class) != null) {
+        sprite = gameObject.handle(SpriteRenderer.class);
+        if(sprite.get() != null) {
             System.out.println("Found Font Renderer!");
         }
     }
@@ -6,11 +6,26 @@ import org.joml.Vector4f;
 import renderer.Texture;
 import domo.Transform;
 
+/*
+* Sprite state is kept twice. Color, sprite and game object transform are changed by game logic (simulation).
+* Renderer reads only render state, which is copied from them through RenderSnapshot, so simulation
+* can run on other thread than rendering. isDirty is about render state, changed is about simulation state.
+* Moves of game object are not tracked here, Scene finds them going over its TransformStore.
+* */
 public class SpriteRenderer extends Component {
     private Vector4f color;
     private Sprite sprite;
 
-    private Transform lastTransform;
+    private boolean changed = true; // color or sprite changed since last snapshot
+
+    // render state, written only through applyState() and interpolate() on render thread:
+    private Transform renderTransform; // drawn, between fromTransform and toTransform
+    private Transform fromTransform; // as of tick before stateTick
+    private Transform toTransform; // as of stateTick
+    private long stateTick; // simulation tick of latest applied state
+    private Vector4f renderColor;
+    private Sprite renderSprite;
+    private boolean renderVisible = true; // false while game object is released to its pool
     private boolean isDirty = false;
 
     public SpriteRenderer(Vector4f color) {
@@ -25,17 +40,21 @@ public class SpriteRenderer extends Component {
         this.isDirty = true;
     }
 
+    /*
+    * Render state starts as a copy of simulation state, sprite is not in renderer yet so nobody reads it.
+    * */
     @Override
     public void start() {
-        this.lastTransform = gameObject.transform.copy();
+        this.renderTransform = gameObject.transform.copy();
+        this.fromTransform = gameObject.transform.copy();
+        this.toTransform = gameObject.transform.copy();
+        this.renderColor = new Vector4f(this.color);
+        this.renderSprite = this.sprite;
+        this.isDirty = true;
     }
 
     @Override
     public void update(float dt) {
-        if (!this.lastTransform.equals(this.gameObject.transform)) {
-            this.gameObject.transform.copy(this.lastTransform);
-            isDirty = true;
-        }
     }
 
     public Vector4f getColor() {
@@ -50,18 +69,120 @@ public class SpriteRenderer extends Component {
         return sprite.getTexCoords();
     }
 
+    public Sprite getSprite() {
+        return this.sprite;
+    }
+
     public void setSprite(Sprite sprite) {
         this.sprite = sprite;
-        this.isDirty = true;
+        this.changed = true;
     }
 
     public void setColor(Vector4f color) {
         if (!this.color.equals(color)) {
-            this.isDirty = true;
+            this.changed = true;
             this.color.set(color);
         }
     }
 
+    /*
+    * true when simulation state has to be passed to renderer with next snapshot.
+    * */
+    public boolean isChanged() {
+        return this.changed;
+    }
+
+    public void clearChanged() {
+        this.changed = false;
+    }
+
+    /*
+    * Copies state captured by snapshot at given tick into render state, on render thread.
+    * When moving, sprite is drawn between previous state and this one, see interpolate(). Otherwise it jumps right there.
+    * Returns true when texture changed, then sprite may have to move to other batch.
+    * */
+    public boolean applyState(long tick, boolean moving, float x, float y, float scaleX, float scaleY,
+                              float r, float g, float b, float a, Sprite sprite) {
+        boolean textureChanged = renderSprite.getTexture() != sprite.getTexture();
+        toTransform.copy(fromTransform); // latest state so far becomes previous one
+        toTransform.set(x, y, scaleX, scaleY);
+        if (!moving) {
+            toTransform.copy(fromTransform);
+        }
+        toTransform.copy(renderTransform);
+        stateTick = tick;
+        renderColor.set(r, g, b, a);
+        renderSprite = sprite;
+        isDirty = true;
+        return textureChanged;
+    }
+
+    /*
+    * Draws sprite at alpha of the way from previous tick's state to latest one, 0 is previous and 1 latest.
+    * Returns false when sprite is at rest, both states are the same.
+    * */
+    public boolean interpolate(float alpha) {
+        if (fromTransform.equals(toTransform)) {
+            return false;
+        }
+        float x = fromTransform.getX() + (toTransform.getX() - fromTransform.getX()) * alpha;
+        float y = fromTransform.getY() + (toTransform.getY() - fromTransform.getY()) * alpha;
+        float scaleX = fromTransform.getScaleX() + (toTransform.getScaleX() - fromTransform.getScaleX()) * alpha;
+        float scaleY = fromTransform.getScaleY() + (toTransform.getScaleY() - fromTransform.getScaleY()) * alpha;
+        long version = renderTransform.version();
+        renderTransform.set(x, y, scaleX, scaleY);
+        if (renderTransform.version() != version) {
+            isDirty = true;
+        }
+        return true;
+    }
+
+    /*
+    * Sprite did not change during the latest tick, it stays where its latest state is.
+    * */
+    public void settle() {
+        toTransform.copy(fromTransform);
+        long version = renderTransform.version();
+        toTransform.copy(renderTransform);
+        if (renderTransform.version() != version) {
+            isDirty = true;
+        }
+    }
+
+    /*
+    * Simulation tick of latest state applied to render state.
+    * */
+    public long stateTick() {
+        return this.stateTick;
+    }
+
+    public Transform renderTransform() {
+        return this.renderTransform;
+    }
+
+    public Vector4f renderColor() {
+        return this.renderColor;
+    }
+
+    public Texture renderTexture() {
+        return renderSprite.getTexture();
+    }
+
+    public Vector2f[] renderTexCoords() {
+        return renderSprite.getTexCoords();
+    }
+
+    public boolean isRenderVisible() {
+        return this.renderVisible;
+    }
+
+    /*
+    * Once sprite is in renderer, change it through Renderer.setVisible(), batch keeps hidden sprites apart.
+    * */
+    public void setRenderVisible(boolean renderVisible) {
+        this.renderVisible = renderVisible;
+    }
+
     public boolean isDirty() {
         return this.isDirty;
     }
@@ -69,4 +190,11 @@ public class SpriteRenderer extends Component {
     public void setClean() {
         this.isDirty = false;
     }
+
+    /*
+    * Forces renderer to load this sprite again, for example after it moved to other place in batch.
+    * */
+    public void markDirty() {
+        this.isDirty = true;
+    }
 }
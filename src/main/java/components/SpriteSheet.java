@@ -14,10 +14,25 @@ public class SpriteSheet {
     private List<Sprite> sprites;
 
     public SpriteSheet(Texture texture, int spriteWidth, int spriteHeight, int numSprites, int spacing) {
+        this(new Sprite(texture), spriteWidth, spriteHeight, numSprites, spacing);
+    }
+
+    /*
+    * Sprite sheet that takes only part of a texture, for example image packed into TextureAtlas.
+    * Sprites are cut out of the region covered by given sprite.
+    * */
+    public SpriteSheet(Sprite region, int spriteWidth, int spriteHeight, int numSprites, int spacing) {
         this.sprites = new ArrayList<>();
-        this.texture = texture;
-        int currentX = 0;
-        int currentY = texture.getHeight() - spriteHeight; // top-left sprite, top-left corner in context of sprite sheet
+        this.texture = region.getTexture();
+
+        // region edges in pixels, texCoords[0] is right-top and texCoords[2] is left-bottom corner
+        Vector2f[] regionCoords = region.getTexCoords();
+        int regionLeft = Math.round(regionCoords[2].x * texture.getWidth());
+        int regionRight = Math.round(regionCoords[0].x * texture.getWidth());
+        int regionTop = Math.round(regionCoords[0].y * texture.getHeight());
+
+        int currentX = regionLeft;
+        int currentY = regionTop - spriteHeight; // top-left sprite, top-left corner in context of sprite sheet
 
         // setting up normalized sprite coords:
         for (int i=0; i<numSprites; i++) {
@@ -40,8 +55,8 @@ public class SpriteSheet {
             currentX += spriteWidth + spacing;
 
             // if we reach the end of current X line of texture sprite bundle:
-            if (currentX >= texture.getWidth()) {
-                currentX = 0;
+            if (currentX >= regionRight) {
+                currentX = regionLeft;
                 currentY -= spriteHeight + spacing;
              }
         }
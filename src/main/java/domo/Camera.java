@@ -1,31 +1,73 @@
 package domo;
 
 import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
 import org.joml.Vector2f;
+import org.joml.Vector2fc;
 import org.joml.Vector3f;
 
+/*
+* Matrices are cached and recomputed only when position or projection changed since they were last asked for.
+* Every change goes through setters and bumps version(), so getters cost a compare of two longs when nothing moved,
+* and renderer can skip uploading matrices that are the same as last frame.
+* Not thread safe, simulation and rendering each have their own camera, see Scene.
+* */
 public class Camera {
+    // size of the view in world units
+    private final float VIEW_WIDTH = 32.0f * 40.0f;
+    private final float VIEW_HEIGHT = 32.0f * 21.0f;
+
     private Matrix4f projectionMatrix;
     private Matrix4f viewMatrix;
-    public Vector2f position; // we need to know where it is in the world.
+    private Matrix4f viewProjectionMatrix; // projection * view
+    private Matrix4f inverseViewProjection; // clip space back to world, for screenToWorld()
+    private Vector2f position; // we need to know where it is in the world.
+
+    private long version; // bumped by every change of position or projection
+    private long matricesVersion = -1; // version the cached matrices were computed for
+    private Vector3f point = new Vector3f(); // scratch for conversions
 
     public Camera(Vector2f position) {
         this.position = position;
         this.projectionMatrix = new Matrix4f();
         this.viewMatrix = new Matrix4f();
+        this.viewProjectionMatrix = new Matrix4f();
+        this.inverseViewProjection = new Matrix4f();
         adjustProjection();
     }
 
-    public Vector2f getPosition() {
+    public Vector2fc getPosition() {
         return this.position;
     }
 
+    public void setPosition(float x, float y) {
+        if (position.x != x || position.y != y) {
+            position.set(x, y);
+            version++;
+        }
+    }
+
+    public void setPosition(Vector2fc position) {
+        setPosition(position.x(), position.y());
+    }
+
+    public void translate(float dx, float dy) {
+        setPosition(position.x + dx, position.y + dy);
+    }
+
+    /*
+    * Goes up with every change of position or projection.
+    * */
+    public long version() {
+        return this.version;
+    }
+
     /*
      * screen size is defined here:
      * operates on units, not pixels
      */
     private void setupScreenSizeForCamera() {
-        projectionMatrix.ortho(0.0f, 32.0f * 40.0f, 0.0f, 32.0f * 21.0f, 0.0f, 100.0f);
+        projectionMatrix.ortho(0.0f, VIEW_WIDTH, 0.0f, VIEW_HEIGHT, 0.0f, 100.0f);
     }
 
     /*
@@ -36,28 +78,76 @@ public class Camera {
         // sensitive bug method. returns identity matrix.
         projectionMatrix.identity();
         this.setupScreenSizeForCamera();
+        version++;
+    }
+
+    /*
+    * Recomputes cached matrices if camera changed since the last time.
+    * */
+    private void updateMatrices() {
+        if (matricesVersion == version) {
+            return;
+        }
+        // camera is located at z 20 looking at negative Z direction, z-front, Y is up
+        viewMatrix.setLookAt(
+                position.x, position.y, 20.0f,
+                position.x, position.y, -1.0f,
+                0.0f, 1.0f, 0.0f);
+        projectionMatrix.mul(viewMatrix, viewProjectionMatrix);
+        viewProjectionMatrix.invert(inverseViewProjection);
+        matricesVersion = version;
     }
 
     /*
-    * Defines where camera is in the world
-    * vector3f operatez on x, y, z coordinates
-    * Camera is looking at negative 1 in the Z direction , z-front.
+    * Defines where camera is in the world. Returned matrix is the cached one, do not keep it across camera changes.
     * */
-    public Matrix4f getViewMatrix() {
-        Vector3f cameraFront = new Vector3f(0.0f, 0.0f, -1.0f);
-        Vector3f cameraUp = new Vector3f(0.0f, 1.0f, 0.0f);
-        this.viewMatrix.identity();
-
-        // where the camera is located at:
-        viewMatrix = viewMatrix.lookAt(
-                    new Vector3f(position.x, position.y, 20.0f), // camera is located here in a world space
-                    cameraFront.add(position.x, position.y, 0.0f), // where camera is looking at, where is the center
-                    cameraUp // which direction is UP
-                );
+    public Matrix4fc getViewMatrix() {
+        updateMatrices();
         return this.viewMatrix;
     }
 
-    public Matrix4f getProjectionMatrix() {
+    public Matrix4fc getProjectionMatrix() {
         return this.projectionMatrix;
     }
+
+    public Matrix4fc getViewProjectionMatrix() {
+        updateMatrices();
+        return this.viewProjectionMatrix;
+    }
+
+    public Matrix4fc getInverseViewProjectionMatrix() {
+        updateMatrices();
+        return this.inverseViewProjection;
+    }
+
+    /*
+    * World point to screen pixels, screen origin is top left corner like mouse position from MouseListener.
+    * */
+    public Vector2f worldToScreen(float worldX, float worldY, float screenWidth, float screenHeight, Vector2f dest) {
+        updateMatrices();
+        viewProjectionMatrix.transformProject(worldX, worldY, 0.0f, point);
+        return dest.set((point.x + 1.0f) * 0.5f * screenWidth, (1.0f - point.y) * 0.5f * screenHeight);
+    }
+
+    /*
+    * Screen pixels to world point, reverse of worldToScreen(). See MouseListener.getWorld().
+    * */
+    public Vector2f screenToWorld(float screenX, float screenY, float screenWidth, float screenHeight, Vector2f dest) {
+        updateMatrices();
+        float ndcX = screenX / screenWidth * 2.0f - 1.0f;
+        float ndcY = 1.0f - screenY / screenHeight * 2.0f;
+        inverseViewProjection.transformProject(ndcX, ndcY, 0.0f, point);
+        return dest.set(point.x, point.y);
+    }
+
+    /*
+    * camera sees world from position to position + view size
+    * */
+    public float getViewWidth() {
+        return VIEW_WIDTH;
+    }
+
+    public float getViewHeight() {
+        return VIEW_HEIGHT;
+    }
 }
@@ -10,4 +10,12 @@ public abstract class Component {
 
     public abstract void update(float dt);
 
+    /*
+    * Pooled game object was released, see Scene.release(). Put component back into the state prefab made it in,
+    * and drop references to other objects. start() is not called again when game object is reused.
+    * */
+    public void reset() {
+
+    }
+
 }
@@ -0,0 +1,39 @@
+package domo;
+
+/*
+* Cached lookup of a component of one game object, for components that need another component often:
+*   private ComponentHandle<SpriteRenderer> sprite;
+*   sprite = gameObject.handle(SpriteRenderer.class); // in start()
+*   sprite.get().setColor(...);                     // every tick
+* get() looks the component up again only after components of the game object were added or removed.
+* T is component class, or interface implemented by component.
+* */
+public class ComponentHandle<T> {
+    private final GameObject gameObject;
+    private final Class<T> componentClass;
+    private final int typeId;
+    private int version = -1; // GameObject.componentsVersion() when component was looked up
+    private T component;
+
+    ComponentHandle(GameObject gameObject, Class<T> componentClass) {
+        this.gameObject = gameObject;
+        this.componentClass = componentClass;
+        this.typeId = ComponentType.of(componentClass).id();
+    }
+
+    /*
+    * The component, or null when game object has none of this class.
+    * */
+    public T get() {
+        int current = gameObject.componentsVersion();
+        if (version != current) {
+            component = componentClass.cast(gameObject.getComponent(typeId));
+            version = current;
+        }
+        return component;
+    }
+
+    public GameObject gameObject() {
+        return this.gameObject;
+    }
+}
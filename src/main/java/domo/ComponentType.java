@@ -0,0 +1,74 @@
+package domo;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+* Small int id of every component class, so game objects can index their components by class in an array.
+* Superclasses and implemented interfaces are resolved once per concrete class: getComponent(First.class) finds
+* Second extends First, and getComponent(Solid.class) finds component implementing Solid, by looking up id
+* of First or Solid, without walking class hierarchy on every call. Ids are global and never reused.
+* */
+public final class ComponentType {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private static final AtomicInteger nextId = new AtomicInteger();
+    private static final ClassValue<ComponentType> types = new ClassValue<>() {
+        @Override
+        protected ComponentType computeValue(Class<?> type) {
+            return new ComponentType(type);
+        }
+    };
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private final int id;
+    private final int[] typeIds; // own id first, then ids of superclasses up to Component and of all interfaces
+    // -----------------------------------------------------------------------
+
+    private ComponentType(Class<?> type) {
+        this.id = nextId.getAndIncrement();
+        // superclass and interfaces carry their own superclasses and superinterfaces, each id is taken once
+        Set<Integer> ids = new LinkedHashSet<>();
+        ids.add(id);
+        Class<?> parent = type.getSuperclass();
+        if (type != Component.class && parent != null && Component.class.isAssignableFrom(parent)) {
+            addAll(ids, of(parent).typeIds);
+        }
+        for (Class<?> iface : type.getInterfaces()) {
+            addAll(ids, of(iface).typeIds);
+        }
+        this.typeIds = new int[ids.size()];
+        int i = 0;
+        for (int typeId : ids) {
+            this.typeIds[i++] = typeId;
+        }
+    }
+
+    private static void addAll(Set<Integer> ids, int[] typeIds) {
+        for (int typeId : typeIds) {
+            ids.add(typeId);
+        }
+    }
+
+    public static ComponentType of(Class<?> type) {
+        return types.get(type);
+    }
+
+    public int id() {
+        return this.id;
+    }
+
+    /*
+    * Ids component of this class is found under: its own, all its superclasses' and interfaces'. Must not be changed.
+    * */
+    int[] typeIds() {
+        return this.typeIds;
+    }
+
+    /*
+    * Number of ids handed out so far, every id is below this.
+    * */
+    public static int count() {
+        return nextId.get();
+    }
+}
@@ -0,0 +1,112 @@
+package domo;
+
+import java.util.concurrent.locks.LockSupport;
+
+/*
+* Runs simulation in ticks of fixed length, whatever the frame rate is, so game logic behaves the same on every machine.
+* Clock is System.nanoTime(), simulatedTime follows real time one tick at a time:
+*   timestep.beginFrame(System.nanoTime());
+*   while (timestep.step()) { scene.update(timestep.getDeltaTime()); }
+* At most maxTicksPerFrame ticks run per frame. When simulation falls further behind (slow machine, debugger),
+* the rest is dropped and game slows down, instead of every frame running more ticks than the last one.
+* */
+public class FixedTimestep {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private final long tickNanos;
+    private final float deltaTime; // tick length in seconds, passed to Scene.update()
+    private final int maxTicksPerFrame;
+    private long simulatedTime; // real time simulation has caught up to
+    private long frameTime; // time given to beginFrame()
+    private int ticksThisFrame;
+    private long ticks;
+    private long droppedTicks; // ticks skipped because simulation was too far behind
+    // -----------------------------------------------------------------------
+
+    public FixedTimestep(int tickRate, int maxTicksPerFrame) {
+        assert tickRate > 0 && maxTicksPerFrame > 0 : "Error: tick rate and max ticks per frame have to be positive";
+        this.tickNanos = NANOS_PER_SECOND / tickRate;
+        this.deltaTime = (float)tickNanos / NANOS_PER_SECOND;
+        this.maxTicksPerFrame = maxTicksPerFrame;
+    }
+
+    /*
+    * Simulation starts at given time, first tick runs one tick length later.
+    * */
+    public void start(long now) {
+        simulatedTime = now;
+        frameTime = now;
+    }
+
+    /*
+    * Starts frame at given time, ticks that are due are then run with step().
+    * */
+    public void beginFrame(long now) {
+        frameTime = now;
+        ticksThisFrame = 0;
+        long behind = now - simulatedTime;
+        long maxBehind = maxTicksPerFrame * tickNanos;
+        if (behind > maxBehind + tickNanos) {
+            long dropped = (behind - maxBehind) / tickNanos;
+            droppedTicks += dropped;
+            simulatedTime += dropped * tickNanos;
+        }
+    }
+
+    /*
+    * Advances simulation clock by one tick when a tick is due. Returns false when simulation caught up with frame time.
+    * */
+    public boolean step() {
+        if (ticksThisFrame == maxTicksPerFrame || frameTime - simulatedTime < tickNanos) {
+            return false;
+        }
+        simulatedTime += tickNanos;
+        ticksThisFrame++;
+        ticks++;
+        return true;
+    }
+
+    /*
+    * How far given time is past the tick that ended at tickTime, in ticks: 0 right at the tick, 1 a whole tick later.
+    * Interpolation alpha for drawing between that tick and the one before it.
+    * */
+    public float alpha(long now, long tickTime) {
+        float alpha = (float)(now - tickTime) / tickNanos;
+        return Math.max(0.0f, Math.min(1.0f, alpha));
+    }
+
+    /*
+    * Parks calling thread until next tick is due, for simulation thread that does not wait for anything else.
+    * */
+    public void waitForNextTick() {
+        long wait = simulatedTime + tickNanos - System.nanoTime();
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    public float getDeltaTime() {
+        return this.deltaTime;
+    }
+
+    public long getTickNanos() {
+        return this.tickNanos;
+    }
+
+    /*
+    * Simulation clock, real time up to which ticks were run.
+    * */
+    public long getSimulatedTime() {
+        return this.simulatedTime;
+    }
+
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    public long getDroppedTicks() {
+        return this.droppedTicks;
+    }
+}
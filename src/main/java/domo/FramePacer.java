@@ -0,0 +1,59 @@
+package domo;
+
+import java.util.concurrent.locks.LockSupport;
+
+import static org.lwjgl.glfw.GLFW.glfwSwapInterval;
+
+/*
+* Limits frame rate of main loop. VSYNC leaves it to the display, TARGET_FPS waits after every frame until the next
+* one is due. Sleeping wakes up late by up to a millisecond or more, so the last SPIN_NANOS of the wait are spun.
+* Frames are due at fixed intervals, one late frame does not push back the ones after it.
+* */
+public class FramePacer {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private final long SPIN_NANOS = 1_500_000; // end of the wait is spun instead of slept
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private FramePacing pacing;
+    private long frameNanos; // for TARGET_FPS
+    private long nextFrame; // when next frame is due
+    // -----------------------------------------------------------------------
+
+    public FramePacer(FramePacing pacing, int targetFps) {
+        assert pacing != FramePacing.TARGET_FPS || targetFps > 0 : "Error: target fps has to be positive, got: " + targetFps;
+        this.pacing = pacing;
+        this.frameNanos = targetFps > 0 ? NANOS_PER_SECOND / targetFps : 0;
+    }
+
+    /*
+    * Sets swap interval of the current GL context, call after the context is made current.
+    * */
+    public void start() {
+        glfwSwapInterval(pacing == FramePacing.VSYNC ? 1 : 0);
+        nextFrame = System.nanoTime() + frameNanos;
+    }
+
+    /*
+    * Call once per frame after swapping buffers. Returns right away unless pacing is TARGET_FPS.
+    * */
+    public void waitForNextFrame() {
+        if (pacing != FramePacing.TARGET_FPS) {
+            return;
+        }
+        long remaining = nextFrame - System.nanoTime();
+        while (remaining > SPIN_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_NANOS);
+            remaining = nextFrame - System.nanoTime();
+        }
+        while (nextFrame - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+        // when more than a frame late, next frame is due right away and schedule starts from there
+        nextFrame = Math.max(nextFrame + frameNanos, System.nanoTime());
+    }
+
+    public FramePacing getPacing() {
+        return this.pacing;
+    }
+}
@@ -0,0 +1,10 @@
+package domo;
+
+/*
+* How main loop limits frame rate, see FramePacer.
+* */
+public enum FramePacing {
+    VSYNC,      // swapping buffers waits for display refresh
+    UNCAPPED,   // no waiting at all, as many frames as machine can draw
+    TARGET_FPS  // v-sync off, loop sleeps until next frame is due
+}
@@ -1,16 +1,34 @@
 package domo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /*
 * container for communication
+* Game objects can form a hierarchy, see setParent(). transform is always the world transform, the one drawn.
+* Child is moved through localTransform(), relative to its parent, and its world transform follows the parent
+* when SceneGraph updates. Parent moves its whole subtree by changing its own transform.
 * */
 public class GameObject {
     private String name;
     private List<Component> components;
+    private Component[] componentIndex = new Component[0]; // by ComponentType id, first added component of that class or its subclass
+    private int componentsVersion; // changes when components are added or removed, see ComponentHandle
     public Transform transform;
     private int zIndex; // every game object will have it's own z-index
+    private boolean isStatic; // never moves, drawn from static batches and skipped by sprite updates
+    private boolean isActive = true; // false while released into pool, not updated nor drawn
+    private GameObjectPool pool; // made by Scene.acquire(), null otherwise
+
+    private GameObject parent; // null for root
+    private List<GameObject> children = new ArrayList<>();
+    private Transform localTransform; // position relative to parent, null for root
+    private SceneGraph sceneGraph; // of the scene this game object is in, null when in none
+    boolean worldDirty; // local transform changed, world transform has to be recomputed, see SceneGraph
+    boolean childrenDirty; // transform changed, world transforms of children have to be recomputed
+    private TransformListener localListener; // on localTransform, created with first parent
+    private TransformListener parentListener; // on transform, created with first child
 
     public GameObject(String name) {
         this.name = name;
@@ -33,25 +51,36 @@ public class GameObject {
         this.transform = transform;
     }
 
-    public <T extends Component> T getComponent(Class<T> componentClass) {
-        for (Component c : components) {
-            if(componentClass.isAssignableFrom(c.getClass())) {
-                try {
-                    return componentClass.cast(c);
-                } catch (ClassCastException e) {
-                    e.printStackTrace();
-                    assert false : "Error: Casting component";
-                }
-            }
-        }
-        return null;
+    /*
+    * First added component of given class, its subclass or class implementing given interface, null when there is none.
+    * One array lookup.
+    * */
+    public <T> T getComponent(Class<T> componentClass) {
+        return componentClass.cast(getComponent(ComponentType.of(componentClass).id()));
+    }
+
+    Component getComponent(int typeId) {
+        return typeId < componentIndex.length ? componentIndex[typeId] : null;
+    }
+
+    /*
+    * Lookup of given component class, cached until components of this game object change.
+    * */
+    public <T> ComponentHandle<T> handle(Class<T> componentClass) {
+        return new ComponentHandle<>(this, componentClass);
     }
 
     public <T extends Component> void removeComponent(Class<T> componentClass) {
         for (int i=0; i< components.size(); i++) {
             Component c = components.get(i);
-            if (componentClass.isAssignableFrom(components.getClass())) {
+            if (componentClass.isAssignableFrom(c.getClass())) {
                 components.remove(i);
+                // component of the same class added later may take its place in index
+                Arrays.fill(componentIndex, null);
+                for (int j=0; j< components.size(); j++) {
+                    index(components.get(j));
+                }
+                componentsVersion++;
                 return;
             }
         }
@@ -60,9 +89,133 @@ public class GameObject {
     public void addComponent(Component c) {
         this.components.add(c);
         c.gameObject = this;
+        index(c);
+        componentsVersion++;
+    }
+
+    private void index(Component c) {
+        for (int typeId : ComponentType.of(c.getClass()).typeIds()) {
+            if (typeId >= componentIndex.length) {
+                componentIndex = Arrays.copyOf(componentIndex, Math.max(typeId + 1, ComponentType.count()));
+            }
+            if (componentIndex[typeId] == null) {
+                componentIndex[typeId] = c;
+            }
+        }
+    }
+
+    int componentsVersion() {
+        return this.componentsVersion;
+    }
+
+    /*
+    * Makes this game object a child of given one, null makes it a root again. World position stays where it is,
+    * local position becomes the offset from parent. Scale is not inherited, in this engine it is the sprite size.
+    * Static objects should not get moving parents, their moves are not drawn until Scene.invalidateStatic().
+    * */
+    public void setParent(GameObject parent) {
+        if (parent == this.parent) {
+            return;
+        }
+        for (GameObject p = parent; p != null; p = p.parent) {
+            if (p == this) {
+                assert false : "Error: '" + name + "' can not be a child of its own subtree";
+                return;
+            }
+        }
+        if (this.parent != null) {
+            this.parent.removeChild(this);
+            localTransform.removeListener(localListener);
+            localTransform = null;
+        }
+        this.parent = parent;
+        if (parent != null) {
+            Transform p = parent.transform;
+            localTransform = new Transform(transform.getX() - p.getX(), transform.getY() - p.getY(),
+                    transform.getScaleX(), transform.getScaleY());
+            if (localListener == null) {
+                localListener = t -> markWorldDirty();
+            }
+            localTransform.addListener(localListener);
+            parent.addChild(this);
+        }
+    }
+
+    private void addChild(GameObject child) {
+        if (children.isEmpty()) {
+            if (parentListener == null) {
+                parentListener = t -> {
+                    if (sceneGraph != null) {
+                        sceneGraph.markChildrenDirty(this);
+                    }
+                };
+            }
+            transform.addListener(parentListener);
+        }
+        children.add(child);
+    }
+
+    private void removeChild(GameObject child) {
+        children.remove(child);
+        if (children.isEmpty()) {
+            transform.removeListener(parentListener);
+        }
+    }
+
+    private void markWorldDirty() {
+        if (sceneGraph != null) {
+            sceneGraph.markWorldDirty(this);
+        }
+    }
+
+    /*
+    * World transform from parent's world transform and local one. Changing it notifies children in turn.
+    * */
+    void updateWorldTransform() {
+        if (parent == null) {
+            return;
+        }
+        updateWorldTransform(parent.transform.getX(), parent.transform.getY());
+    }
+
+    /*
+    * Same, with parent's world position already read, for going over all children of one parent.
+    * */
+    void updateWorldTransform(float parentX, float parentY) {
+        transform.set(parentX + localTransform.getX(), parentY + localTransform.getY(),
+                localTransform.getScaleX(), localTransform.getScaleY());
+    }
+
+    public GameObject parent() {
+        return this.parent;
+    }
+
+    /*
+    * Direct children, change them through setParent().
+    * */
+    public List<GameObject> children() {
+        return this.children;
+    }
+
+    /*
+    * Transform relative to parent, the one to move child with. For root it is the world transform.
+    * */
+    public Transform localTransform() {
+        return parent != null ? localTransform : transform;
+    }
+
+    SceneGraph sceneGraph() {
+        return this.sceneGraph;
+    }
+
+    void setSceneGraph(SceneGraph sceneGraph) {
+        this.sceneGraph = sceneGraph;
     }
 
     public void update(float dt) {
+        if (!isActive) {
+            return;
+        }
         for (int i=0; i< components.size(); i++) {
             components.get(i).update(dt);
         }
@@ -74,7 +227,44 @@ public class GameObject {
         }
     }
 
+    /*
+    * Released into pool, see Component.reset().
+    * */
+    void reset() {
+        for (int i=0; i< components.size(); i++) {
+            components.get(i).reset();
+        }
+    }
+
+    public boolean isActive() {
+        return this.isActive;
+    }
+
+    void setActive(boolean isActive) {
+        this.isActive = isActive;
+    }
+
+    GameObjectPool pool() {
+        return this.pool;
+    }
+
+    void setPool(GameObjectPool pool) {
+        this.pool = pool;
+    }
+
     public int zIndex() {
         return this.zIndex;
     }
+
+    public boolean isStatic() {
+        return this.isStatic;
+    }
+
+    /*
+    * Static objects (ground, blocks, background) are uploaded once. After changing static object
+    * that is already in scene, call Scene.invalidateStatic() so it gets drawn with the change.
+    * */
+    public void setStatic(boolean isStatic) {
+        this.isStatic = isStatic;
+    }
 }
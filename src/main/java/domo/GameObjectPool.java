@@ -0,0 +1,89 @@
+package domo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+* Released game objects of one prefab, waiting to be acquired again, and counters of how well reuse works.
+* Pooled game objects never leave the scene: they keep entity id, transform in scene's store and slot in render batch,
+* released ones are only inactive and hidden. Owned by Scene, used on simulation thread.
+* */
+public class GameObjectPool {
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private final Prefab prefab;
+    private List<GameObject> free = new ArrayList<>();
+    private int numInUse;
+    private int highWaterMark; // most game objects in use at once
+    private long hits; // acquires served from released game objects
+    private long misses; // acquires that had to create new game object
+    // -----------------------------------------------------------------------
+
+    GameObjectPool(Prefab prefab) {
+        this.prefab = prefab;
+    }
+
+    /*
+    * Released game object of this pool, or null when there is none. Counts hit or miss, so call it once per acquire.
+    * */
+    GameObject take() {
+        numInUse++;
+        highWaterMark = Math.max(highWaterMark, numInUse);
+        if (free.isEmpty()) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return free.remove(free.size() - 1);
+    }
+
+    GameObject create() {
+        GameObject go = prefab.create();
+        go.setPool(this);
+        return go;
+    }
+
+    void put(GameObject go) {
+        numInUse--;
+        free.add(go);
+    }
+
+    /*
+    * Game object was removed from scene, it is not pooled anymore.
+    * */
+    void forget(GameObject go) {
+        if (!free.remove(go)) {
+            numInUse--;
+        }
+        go.setPool(null);
+    }
+
+    public Prefab prefab() {
+        return this.prefab;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public int getHighWaterMark() {
+        return this.highWaterMark;
+    }
+
+    public int getNumInUse() {
+        return this.numInUse;
+    }
+
+    public int getNumFree() {
+        return this.free.size();
+    }
+
+    @Override
+    public String toString() {
+        return "hits " + hits + ", misses " + misses + ", in use " + numInUse + ", free " + free.size()
+                + ", high-water mark " + highWaterMark;
+    }
+}
@@ -5,9 +5,17 @@ import java.security.Key;
 import static org.lwjgl.glfw.GLFW.GLFW_PRESS;
 import static org.lwjgl.glfw.GLFW.GLFW_RELEASE;
 
+/*
+* GLFW callbacks come on the main (render) thread, game reads keys in Scene.update(), maybe on simulation thread.
+* Callbacks write to incoming state under lock, beginFrame() copies it to state that the game reads during the tick.
+* A press is latched until the next tick, so a key tapped and released between two ticks is still seen down for one tick.
+* */
 public class KeyListener {
     private static KeyListener instance;
     private boolean keyPressed[] = new boolean[350]; // amount of key bindings
+    private final boolean incomingKeyPressed[] = new boolean[350]; // written by callbacks, guarded by itself
+    private final boolean pressedSinceLastTick[] = new boolean[350]; // went down since last beginFrame(), guarded by incomingKeyPressed
+    private final Runnable pressActions[] = new Runnable[350]; // run by callback when key goes down, see onKeyPress()
 
     private KeyListener() {}
 
@@ -18,10 +26,46 @@ public class KeyListener {
         return KeyListener.instance;
     }
     public static void keyCallback(long window, int key, int scancode, int action, int mods) {
-        if ( action == GLFW_PRESS) {
-            get().keyPressed[key] = true;
-        } else if (action == GLFW_RELEASE) {
-            get().keyPressed[key] = false;
+        boolean[] incoming = get().incomingKeyPressed;
+        // unknown keys come as -1
+        if (key < 0 || key >= incoming.length) {
+            return;
+        }
+        synchronized (incoming) {
+            if ( action == GLFW_PRESS) {
+                incoming[key] = true;
+                get().pressedSinceLastTick[key] = true;
+            } else if (action == GLFW_RELEASE) {
+                incoming[key] = false;
+            }
+        }
+        Runnable pressAction = get().pressActions[key];
+        if (action == GLFW_PRESS && pressAction != null) {
+            pressAction.run();
+        }
+    }
+
+    /*
+    * Hotkey: action runs right in the callback on main thread every time key goes down, not during a tick.
+    * For engine tools that are not part of the game, like dumping frame stats. null removes the action.
+    * */
+    public static void onKeyPress(int keyCode, Runnable action) {
+        get().pressActions[keyCode] = action;
+    }
+
+    /*
+    * Takes keys pressed so far, call at start of every simulation tick, on the thread that runs update().
+    * Keys that went down and up again since last tick count as pressed for this tick.
+    * */
+    public static void beginFrame() {
+        boolean[] incoming = get().incomingKeyPressed;
+        boolean[] pressed = get().pressedSinceLastTick;
+        boolean[] keyPressed = get().keyPressed;
+        synchronized (incoming) {
+            for (int i=0; i< incoming.length; i++) {
+                keyPressed[i] = incoming[i] || pressed[i];
+                pressed[i] = false;
+            }
         }
     }
 
@@ -38,16 +38,14 @@ public class LevelEditorScene extends Scene {
         * */
         obj1 = new GameObject("Mario obj- left", new Transform(new Vector2f(200, 100), new Vector2f(256, 256)), 0);
 //        obj1.addComponent(new SpriteRenderer(sprites.getSprite(0)));
-        obj1.addComponent(new SpriteRenderer(new Sprite(
-                AssetPool.getTexture("assets/Images/blendImage1.png")
-        )));
+        obj1.addComponent(new SpriteRenderer(AssetPool.getAtlasSprite("assets/Images/blendImage1.png")));
         this.addGameObjectToScene(obj1);
 
         GameObject obj2 = new GameObject("Gumbas obj - right", new Transform(new Vector2f(400, 100), new Vector2f(256, 256)), -1);
 //        obj2.addComponent(new SpriteRenderer(sprites.getSprite(10)));
-        obj2.addComponent(new SpriteRenderer(new Sprite(
-                AssetPool.getTexture("assets/Images/blendImage2.png")
-        )));
+        obj2.addComponent(new SpriteRenderer(AssetPool.getAtlasSprite("assets/Images/blendImage2.png")));
+        // does not move, uploaded once. When editing it later, call invalidateStatic(obj2) after the change.
+        obj2.setStatic(true);
         this.addGameObjectToScene(obj2);
 
         // -----------------------------------------------------------
@@ -56,8 +54,16 @@ public class LevelEditorScene extends Scene {
     private void loadResources() {
         AssetPool.getShader("assets/shaders/default.glsl");
 
+        /*
+        * pack all images of the scene into shared atlas, so they end up in the same batches.
+        * */
+        AssetPool.addToAtlas("assets/Images/blendImage1.png");
+        AssetPool.addToAtlas("assets/Images/blendImage2.png");
+        AssetPool.addToAtlas("assets/Images/spritesheet.png");
+        AssetPool.buildAtlases();
+
         AssetPool.addSpriteSheet("assets/Images/spritesheet.png",
-                new SpriteSheet(AssetPool.getTexture("assets/Images/spritesheet.png"), 16, 16, 26, 0));
+                new SpriteSheet(AssetPool.getAtlasSprite("assets/Images/spritesheet.png"), 16, 16, 26, 0));
     }
 
     private int spriteIndex = 0;
@@ -94,15 +100,13 @@ public class LevelEditorScene extends Scene {
         for ( GameObject go : this.gameObjects) {
             go.update(dt);
         }
-        this.renderer.render();
     }
 
     /*
     * move camera a bit to the side one step at a time.
     * */
     private void moveCamera(float dt) {
-        camera.position.y -= dt * 20.0f;
-        camera.position.x -= dt * 50.0f;
+        camera.translate(-dt * 50.0f, -dt * 20.0f);
     }
 
 }
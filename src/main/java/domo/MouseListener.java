@@ -1,8 +1,15 @@
 package domo;
 
+import org.joml.Vector2f;
+
 import static org.lwjgl.glfw.GLFW.GLFW_PRESS;
 import static org.lwjgl.glfw.GLFW.GLFW_RELEASE;
 
+/*
+* Same as KeyListener: callbacks write incoming state under lock on main thread,
+* beginFrame() copies it for the game once per simulation tick. Button presses are latched until the next tick,
+* so a click shorter than a tick is not lost.
+* */
 public class MouseListener {
     private static MouseListener instance;
     private double scrollX;
@@ -14,6 +21,16 @@ public class MouseListener {
     private boolean mouseButtonPressed[] = new boolean[3]; // 3 mouse buttons
     private boolean isDragging;
 
+    // written by callbacks, guarded by incomingLock:
+    private final Object incomingLock = new Object();
+    private double incomingScrollX; // summed until beginFrame(), there can be more scroll events per frame
+    private double incomingScrollY;
+    private double incomingX;
+    private double incomingY;
+    private boolean incomingButtonPressed[] = new boolean[3];
+    private boolean pressedSinceLastTick[] = new boolean[3]; // went down since last beginFrame()
+    private boolean incomingDragging;
+
     private MouseListener() {
         this.scrollX = 0.0;
         this.scrollY = 0.0;
@@ -31,40 +48,62 @@ public class MouseListener {
     }
 
     public static void mousePosCallback(long window, double xpos, double ypos) {
-        // get mouse positions
-        get().lastX = get().xPos;
-        get().lastY = get().yPos;
-
-        // set position to what it is now
-        get().xPos = xpos;
-        get().yPos = ypos;
-        get().isDragging = get().mouseButtonPressed[0] || get().mouseButtonPressed[1] || get().mouseButtonPressed[2];
+        MouseListener m = get();
+        synchronized (m.incomingLock) {
+            // set position to what it is now
+            m.incomingX = xpos;
+            m.incomingY = ypos;
+            m.incomingDragging = m.incomingButtonPressed[0] || m.incomingButtonPressed[1] || m.incomingButtonPressed[2];
+        }
     }
 
     public static void mouseButtonCallback(long window, int button, int action, int modifiers) {
+        MouseListener m = get();
         // modifier is like press control or alt button while clicking
-        if (action == GLFW_PRESS) {
-            if (button < get().mouseButtonPressed.length) {
-                get().mouseButtonPressed[button] = true;
-            }
-        } else if (action == GLFW_RELEASE) {
-            if (button < get().mouseButtonPressed.length) {
-                get().mouseButtonPressed[button] = false;
-                get().isDragging = false;
+        synchronized (m.incomingLock) {
+            if (action == GLFW_PRESS) {
+                if (button < m.incomingButtonPressed.length) {
+                    m.incomingButtonPressed[button] = true;
+                    m.pressedSinceLastTick[button] = true;
+                }
+            } else if (action == GLFW_RELEASE) {
+                if (button < m.incomingButtonPressed.length) {
+                    m.incomingButtonPressed[button] = false;
+                    m.incomingDragging = false;
+                }
             }
         }
     }
 
     public static void mouseScrollCallback (long window, double xOffset, double yOffset) {
-        get().scrollX = xOffset;
-        get().scrollY = yOffset;
+        MouseListener m = get();
+        synchronized (m.incomingLock) {
+            m.incomingScrollX += xOffset;
+            m.incomingScrollY += yOffset;
+        }
     }
 
-    public static void endFrame() {
-        get().scrollX = 0;
-        get().scrollY = 0;
-        get().lastX = get().xPos;
-        get().lastY = get().yPos;
+    /*
+    * Takes mouse state gathered since last call, at start of every simulation tick on the thread that runs update().
+    * Dx and Dy are then movement since previous tick.
+    * */
+    public static void beginFrame() {
+        MouseListener m = get();
+        synchronized (m.incomingLock) {
+            m.lastX = m.xPos;
+            m.lastY = m.yPos;
+            m.xPos = m.incomingX;
+            m.yPos = m.incomingY;
+            m.scrollX = m.incomingScrollX;
+            m.scrollY = m.incomingScrollY;
+            m.incomingScrollX = 0;
+            m.incomingScrollY = 0;
+            for (int i=0; i< m.mouseButtonPressed.length; i++) {
+                m.mouseButtonPressed[i] = m.incomingButtonPressed[i] || m.pressedSinceLastTick[i];
+                m.pressedSinceLastTick[i] = false;
+            }
+            m.isDragging = m.incomingDragging;
+        }
     }
 
     public static float getX() {
@@ -85,6 +124,15 @@ public class MouseListener {
         return (float) (get().lastY - get().yPos);
     }
 
+    /*
+    * Mouse position in the world as seen by given camera, for picking objects under the cursor.
+    * Mouse position is in screen coordinates, so it is related to window size, not to framebuffer size.
+    * */
+    public static Vector2f getWorld(Camera camera, Vector2f dest) {
+        Window window = Window.get();
+        return camera.screenToWorld(getX(), getY(), window.getWindowWidth(), window.getWindowHeight(), dest);
+    }
+
     public static float getScrollX() {
         return (float) get().scrollX;
     }
@@ -0,0 +1,9 @@
+package domo;
+
+/*
+* Makes new game object of one kind (enemy, projectile, particle), see Scene.acquire().
+* The same prefab instance is the key of its pool, keep it in a field instead of creating it per spawn.
+* */
+public interface Prefab {
+    GameObject create();
+}
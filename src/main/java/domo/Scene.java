@@ -1,15 +1,43 @@
 package domo;
 
+import components.SpriteRenderer;
+import org.joml.Vector2f;
+import renderer.RenderInterpolation;
 import renderer.Renderer;
+import renderer.SnapshotExchange;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
+/*
+* update() is simulation, it changes game objects and camera. Renderer never reads them directly,
+* publishSnapshot() captures what changed and applySnapshot() passes it to renderer, see SnapshotExchange.
+* That way update() can run on its own thread, Window decides that.
+* update() runs in fixed ticks, interpolate() draws sprites and camera between the last two of them.
+* Transforms of game objects in scene live in one TransformStore, game objects are handles to its entity ids.
+* World transforms of child game objects are brought up to date by SceneGraph before they are started or published.
+* Children are not added or removed together with their parent, each game object is added to scene on its own.
+* Spawned and despawned objects can be pooled, see acquire() and release(): released game object stays in scene
+* with its entity id and render batch slot, it is only inactive and hidden from renderer until acquired again.
+* */
 public abstract class Scene {
     protected Renderer renderer = new Renderer();
     protected Camera camera;
+    private Camera renderCamera; // camera as of last applied snapshot, used for drawing
+    private RenderInterpolation interpolation = new RenderInterpolation(null);
+    private long tick; // simulation ticks published so far
     private boolean isRunning = false;
     protected List<GameObject> gameObjects = new ArrayList<>();
+    private TransformStore transforms = new TransformStore(); // of all game objects in scene, indexed by entity id
+    private SceneGraph sceneGraph = new SceneGraph();
+    private SpriteRenderer[] entitySprites = new SpriteRenderer[64]; // sprite of every entity id, null for none
+    private SnapshotExchange snapshots = new SnapshotExchange();
+    private Map<Prefab, GameObjectPool> pools = new IdentityHashMap<>();
+    private List<GameObject> acquired = new ArrayList<>(); // shown again at next publishSnapshot()
 
     /*
     * game object, physics, everything goes here
@@ -25,26 +53,228 @@ public abstract class Scene {
         /*
         * Added at the beggining of the scene.
         * */
+        sceneGraph.update();
         for (GameObject go: gameObjects) {
             go.start();
-            this.renderer.add(go);
+            registerSprite(go);
         }
+        if (camera != null) {
+            renderCamera = new Camera(new Vector2f(camera.getPosition()));
+        }
+        interpolation = new RenderInterpolation(renderCamera);
+        // all sprites at once, renderer can plan batches for the whole scene
+        this.renderer.addAll(gameObjects);
         isRunning = true;
     }
 
     public void addGameObjectToScene(GameObject go) {
+        go.transform.attach(transforms);
+        sceneGraph.add(go);
         if (!isRunning) {
             gameObjects.add(go);
         } else {
             gameObjects.add(go);
+            sceneGraph.update();
             go.start();
-            this.renderer.add(go);
+            SpriteRenderer spr = registerSprite(go);
+            if (spr != null) {
+                snapshots.writer().add(spr);
+            }
+        }
+    }
+
+    /*
+    * Lists sprite of game object under its entity id, so publishSnapshot() finds it. Render state was just copied
+    * from it in start(), so it has no changes to publish yet.
+    * */
+    private SpriteRenderer registerSprite(GameObject go) {
+        SpriteRenderer spr = go.getComponent(SpriteRenderer.class);
+        if (spr == null) {
+            return null;
+        }
+        int id = go.transform.id();
+        if (id >= entitySprites.length) {
+            entitySprites = Arrays.copyOf(entitySprites, Math.max(id + 1, entitySprites.length * 2));
+        }
+        entitySprites[id] = spr;
+        spr.clearChanged();
+        return spr;
+    }
+
+    /*
+    * Removes game object from scene, its sprite is not drawn anymore.
+    * */
+    public void removeGameObjectFromScene(GameObject go) {
+        if (!gameObjects.remove(go)) {
+            return;
+        }
+        int id = go.transform.id();
+        if (id < entitySprites.length) {
+            if (isRunning && entitySprites[id] != null) {
+                snapshots.writer().remove(entitySprites[id]);
+            }
+            entitySprites[id] = null;
+        }
+        sceneGraph.remove(go);
+        go.transform.detach();
+        if (go.pool() != null) {
+            go.pool().forget(go);
+            go.setActive(true);
+            acquired.remove(go);
+        }
+    }
+
+    /*
+    * Game object made by prefab: released one of its pool if there is any, new one added to scene otherwise.
+    * Reused game object is not started again, it is as its components' reset() left it. Set its position and
+    * whatever else differs per spawn before next publishSnapshot(), it is drawn right there, not interpolated.
+    * */
+    public GameObject acquire(Prefab prefab) {
+        GameObjectPool pool = pools.computeIfAbsent(prefab, GameObjectPool::new);
+        GameObject go = pool.take();
+        if (go == null) {
+            go = pool.create();
+            addGameObjectToScene(go);
+        } else {
+            go.setActive(true);
+        }
+        if (isRunning) {
+            acquired.add(go);
+        }
+        return go;
+    }
+
+    /*
+    * Puts game object made by acquire() back into its pool. Its components are reset and it stops being updated
+    * and drawn, but keeps its place in scene and in renderer. Game objects not made by acquire() are removed instead.
+    * */
+    public void release(GameObject go) {
+        GameObjectPool pool = go.pool();
+        if (pool == null) {
+            removeGameObjectFromScene(go);
+            return;
+        }
+        if (!go.isActive()) {
+            return;
+        }
+        go.setActive(false);
+        go.reset();
+        pool.put(go);
+        SpriteRenderer spr = go.getComponent(SpriteRenderer.class);
+        if (isRunning && spr != null) {
+            spr.clearChanged();
+            transforms.takeChanged(go.transform.id());
+            snapshots.writer().hide(spr);
+        }
+    }
+
+    /*
+    * Pool of given prefab with its hit and miss counters, null when nothing was acquired from it yet.
+    * */
+    public GameObjectPool pool(Prefab prefab) {
+        return pools.get(prefab);
+    }
+
+    public Collection<GameObjectPool> pools() {
+        return pools.values();
+    }
+
+    /*
+    * Redraws static game object after it was changed, for example moved in level editor.
+    * Also needed after game object's static flag was changed.
+    * */
+    public void invalidateStatic(GameObject go) {
+        SpriteRenderer spr = go.getComponent(SpriteRenderer.class);
+        if (isRunning && spr != null) {
+            spr.clearChanged();
+            transforms.takeChanged(go.transform.id());
+            snapshots.writer().invalidate(spr);
         }
     }
 
     public abstract void update(float dt);
 
+    /*
+    * End of simulation tick: captures sprites changed during update() and camera position, and hands them to renderer.
+    * tickTime is simulation clock at the end of this tick, System.nanoTime() based, see FixedTimestep.
+    * Goes over entity ids in order, moves are found comparing transform versions with those seen at previous tick.
+    * */
+    public void publishSnapshot(long tickTime) {
+        sceneGraph.update();
+        SpriteRenderer[] sprites = entitySprites;
+        // acquired game objects jump to where they were spawned, instead of moving there from where they were released
+        for (int i=0; i< acquired.size(); i++) {
+            GameObject go = acquired.get(i);
+            int id = go.transform.id();
+            if (!go.isActive() || id >= sprites.length || sprites[id] == null) {
+                continue; // released again during the same tick, or has no sprite
+            }
+            sprites[id].clearChanged();
+            transforms.takeChanged(id);
+            snapshots.writer().invalidate(sprites[id]);
+        }
+        acquired.clear();
+        int numIds = Math.min(transforms.size(), sprites.length);
+        for (int id=0; id< numIds; id++) {
+            SpriteRenderer spr = sprites[id];
+            if (spr == null || !spr.gameObject.isActive()) {
+                continue;
+            }
+            // static objects do not move, renderer is told about changes through invalidateStatic()
+            boolean moved = !spr.gameObject.isStatic() && transforms.takeChanged(id);
+            if (moved || spr.isChanged()) {
+                snapshots.writer().update(spr);
+                spr.clearChanged();
+            }
+        }
+        if (camera != null) {
+            snapshots.writer().setCamera(camera);
+        }
+        tick++;
+        snapshots.writer().endTick(tick, tickTime);
+        snapshots.publish();
+    }
+
+    /*
+    * Render thread: applies latest published snapshot to renderer.
+    * */
+    public void applySnapshot() {
+        snapshots.take().apply(renderer, interpolation);
+    }
+
+    /*
+    * Render thread: places moving sprites and camera alpha of the way from previous tick to the latest applied one.
+    * */
+    public void interpolate(float alpha) {
+        interpolation.apply(alpha);
+    }
+
+    /*
+    * Simulation clock of the latest tick applied to renderer, for computing interpolation alpha.
+    * */
+    public long renderTickTime() {
+        return interpolation.latestTickTime();
+    }
+
+    public void render() {
+        if (renderCamera != null) {
+            renderer.render(renderCamera);
+        }
+    }
+
     public Camera camera() {
         return this.camera;
     }
+
+    public Renderer renderer() {
+        return this.renderer;
+    }
+
+    public TransformStore transforms() {
+        return this.transforms;
+    }
+
+    public SceneGraph sceneGraph() {
+        return this.sceneGraph;
+    }
 }
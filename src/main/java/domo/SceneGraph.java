@@ -0,0 +1,90 @@
+package domo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+* Keeps world transforms of child game objects in line with their parents, see GameObject.setParent().
+* Nothing walks the whole hierarchy. A parent whose transform changed is queued once through TransformListener,
+* and so is a child whose local transform changed. update() recomputes children of queued parents in a plain loop,
+* a child that has children of its own is queued in turn, so a moved subtree is visited breadth first.
+* A recomputed child without children has no listeners, its update is one Transform.set(). Moving a parent costs
+* about 1.5 to 2 times as much as moving its children one by one would, see SceneGraphBenchmark.
+* Runs on simulation thread, Scene calls update() before objects are started and at the end of every tick.
+* */
+public class SceneGraph {
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private List<GameObject> dirty = new ArrayList<>(); // game objects with worldDirty or childrenDirty, breadth first
+    private int numUpdated; // world transforms recomputed during last update()
+    // -----------------------------------------------------------------------
+
+    public void add(GameObject go) {
+        go.setSceneGraph(this);
+        if (go.parent() != null) {
+            markWorldDirty(go);
+        }
+    }
+
+    public void remove(GameObject go) {
+        go.setSceneGraph(null);
+    }
+
+    void markWorldDirty(GameObject go) {
+        if (!go.worldDirty) {
+            go.worldDirty = true;
+            enqueue(go);
+        }
+    }
+
+    void markChildrenDirty(GameObject go) {
+        if (!go.childrenDirty) {
+            go.childrenDirty = true;
+            enqueue(go);
+        }
+    }
+
+    private void enqueue(GameObject go) {
+        // queued already when the other flag is set, it is handled once for both
+        if (!(go.worldDirty && go.childrenDirty)) {
+            dirty.add(go);
+        }
+    }
+
+    /*
+    * Recomputes world transforms of dirty game objects and of everything under them. Queue grows while it is walked.
+    * Returns number of world transforms recomputed.
+    * */
+    public int update() {
+        numUpdated = 0;
+        for (int i=0; i< dirty.size(); i++) {
+            GameObject go = dirty.get(i);
+            if (go.sceneGraph() != this) {
+                go.worldDirty = false;
+                go.childrenDirty = false;
+                continue; // removed from scene since it was marked
+            }
+            if (go.worldDirty) {
+                go.worldDirty = false;
+                go.updateWorldTransform(); // marks children dirty when it changed anything
+                numUpdated++;
+            }
+            if (go.childrenDirty) {
+                go.childrenDirty = false;
+                List<GameObject> children = go.children();
+                float x = go.transform.getX(), y = go.transform.getY();
+                for (int j=0; j< children.size(); j++) {
+                    GameObject child = children.get(j);
+                    child.worldDirty = false; // recomputed here, if it was queued its entry only handles its children
+                    child.updateWorldTransform(x, y);
+                }
+                numUpdated += children.size();
+            }
+        }
+        dirty.clear();
+        return numUpdated;
+    }
+
+    public int getNumUpdated() {
+        return this.numUpdated;
+    }
+}
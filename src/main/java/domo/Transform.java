@@ -1,35 +1,236 @@
 package domo;
 
 import org.joml.Vector2f;
+import org.joml.Vector2fc;
 
+import java.util.Arrays;
+
+/*
+* Position and scale of a game object. Values are kept in the transform itself until it is attached to TransformStore,
+* from then on it is only a handle and values live in store arrays. Scene attaches transforms of its game objects,
+* Renderer attaches render transforms of its sprites. Code using getters and setters does not see the difference.
+* Every setter that changes a value bumps version(), so whoever wants to know if a transform moved since last look
+* keeps the version it saw and compares one long. Setting the same values again is not a change.
+* */
 public class Transform {
-    public Vector2f position;
-    public Vector2f scale;
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private static final TransformListener[] NO_LISTENERS = new TransformListener[0];
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private TransformStore store; // null while detached
+    private int id = -1;
+
+    // values while detached:
+    private float x, y;
+    private float scaleX, scaleY;
+    private long version;
+
+    private TransformListener[] listeners = NO_LISTENERS;
+    // -----------------------------------------------------------------------
 
     public Transform() {
-        init(new Vector2f(), new Vector2f());
     }
 
     public Transform(Vector2f position) {
-        init(position, new Vector2f());
+        this(position.x, position.y, 0.0f, 0.0f);
     }
 
     public Transform(Vector2f position, Vector2f scale) {
-        init(position, scale);
+        this(position.x, position.y, scale.x, scale.y);
+    }
+
+    public Transform(float x, float y, float scaleX, float scaleY) {
+        this.x = x;
+        this.y = y;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+    }
+
+    public float getX() {
+        return store != null ? store.x[id] : x;
+    }
+
+    public float getY() {
+        return store != null ? store.y[id] : y;
+    }
+
+    public float getScaleX() {
+        return store != null ? store.scaleX[id] : scaleX;
+    }
+
+    public float getScaleY() {
+        return store != null ? store.scaleY[id] : scaleY;
+    }
+
+    public Vector2f getPosition(Vector2f dest) {
+        return dest.set(getX(), getY());
+    }
+
+    public Vector2f getScale(Vector2f dest) {
+        return dest.set(getScaleX(), getScaleY());
+    }
+
+    /*
+    * Modification counter, goes up by one with every change of values. Stays the same across attach() and detach().
+    * */
+    public long version() {
+        return store != null ? store.versions[id] : version;
+    }
+
+    public void setPosition(float x, float y) {
+        if (store != null) {
+            if (store.x[id] == x && store.y[id] == y) {
+                return;
+            }
+            store.x[id] = x;
+            store.y[id] = y;
+        } else {
+            if (this.x == x && this.y == y) {
+                return;
+            }
+            this.x = x;
+            this.y = y;
+        }
+        changed();
+    }
+
+    public void setPosition(Vector2fc position) {
+        setPosition(position.x(), position.y());
+    }
+
+    public void setScale(float scaleX, float scaleY) {
+        if (store != null) {
+            if (store.scaleX[id] == scaleX && store.scaleY[id] == scaleY) {
+                return;
+            }
+            store.scaleX[id] = scaleX;
+            store.scaleY[id] = scaleY;
+        } else {
+            if (this.scaleX == scaleX && this.scaleY == scaleY) {
+                return;
+            }
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+        }
+        changed();
+    }
+
+    public void setScale(Vector2fc scale) {
+        setScale(scale.x(), scale.y());
+    }
+
+    public void translate(float dx, float dy) {
+        setPosition(getX() + dx, getY() + dy);
+    }
+
+    /*
+    * All four values at once, one version bump and one notification.
+    * */
+    public void set(float x, float y, float scaleX, float scaleY) {
+        if (store != null) {
+            if (store.x[id] == x && store.y[id] == y && store.scaleX[id] == scaleX && store.scaleY[id] == scaleY) {
+                return;
+            }
+            store.x[id] = x;
+            store.y[id] = y;
+            store.scaleX[id] = scaleX;
+            store.scaleY[id] = scaleY;
+        } else {
+            if (this.x == x && this.y == y && this.scaleX == scaleX && this.scaleY == scaleY) {
+                return;
+            }
+            this.x = x;
+            this.y = y;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+        }
+        changed();
+    }
+
+    private void changed() {
+        if (store != null) {
+            store.versions[id]++;
+        } else {
+            version++;
+        }
+        for (TransformListener listener : listeners) {
+            listener.transformChanged(this);
+        }
+    }
+
+    /*
+    * Listener is called after every change, on the thread that made it. Most transforms have none, the array
+    * is only allocated for those that do.
+    * */
+    public void addListener(TransformListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    public void removeListener(TransformListener listener) {
+        for (int i=0; i< listeners.length; i++) {
+            if (listeners[i] == listener) {
+                TransformListener[] rest = new TransformListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, rest, 0, i);
+                System.arraycopy(listeners, i + 1, rest, i, rest.length - i);
+                listeners = rest.length == 0 ? NO_LISTENERS : rest;
+                return;
+            }
+        }
+    }
+
+    /*
+    * Moves values into a new id of given store, transform reads and writes the store from now on.
+    * */
+    public void attach(TransformStore store) {
+        if (this.store == store) {
+            return;
+        }
+        float x = getX(), y = getY(), scaleX = getScaleX(), scaleY = getScaleY();
+        long version = version();
+        detach();
+        this.id = store.allocate();
+        this.store = store;
+        store.set(id, x, y, scaleX, scaleY, version);
+    }
+
+    /*
+    * Takes values back from the store and frees the id.
+    * */
+    public void detach() {
+        if (store == null) {
+            return;
+        }
+        x = store.x[id];
+        y = store.y[id];
+        scaleX = store.scaleX[id];
+        scaleY = store.scaleY[id];
+        version = store.versions[id];
+        store.free(id);
+        store = null;
+        id = -1;
+    }
+
+    public boolean isAttached() {
+        return store != null;
     }
 
-    public void init(Vector2f position, Vector2f scale) {
-        this.position = position;
-        this.scale = scale;
+    /*
+    * Index in the store this transform is attached to, -1 while detached.
+    * */
+    public int id() {
+        return this.id;
     }
 
+    /*
+    * New detached transform with the same values, version starts over and listeners are not copied.
+    * */
     public Transform copy() {
-        return new Transform(new Vector2f(this.position), new Vector2f(this.scale));
+        return new Transform(getX(), getY(), getScaleX(), getScaleY());
     }
 
     public void copy(Transform to) {
-        to.position.set(this.position);
-        to.scale.set(this.scale);
+        to.set(getX(), getY(), getScaleX(), getScaleY());
     }
 
     @Override
@@ -41,6 +242,6 @@ public class Transform {
             return false;
         }
         Transform t = (Transform)o;
-        return t.position.equals(this.position) && t.scale.equals(this.scale);
+        return t.getX() == getX() && t.getY() == getY() && t.getScaleX() == getScaleX() && t.getScaleY() == getScaleY();
     }
 }
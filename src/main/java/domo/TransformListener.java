@@ -0,0 +1,9 @@
+package domo;
+
+/*
+* Told about every change of a transform it was added to, see Transform.addListener().
+* Called on the thread that changed the transform, right after the change.
+* */
+public interface TransformListener {
+    void transformChanged(Transform transform);
+}
@@ -0,0 +1,107 @@
+package domo;
+
+import java.util.Arrays;
+
+/*
+* Positions and scales of many transforms, struct of arrays: one float array per component, indexed by id.
+* Going over all transforms reads four arrays front to back, instead of visiting two Vector2f per object on the heap.
+* Transform is a handle to one id while attached, see Transform.attach().
+* Ids of freed transforms are handed out again, so arrays stay as long as the most transforms alive at once.
+* Not thread safe, a store belongs to one thread: Scene's to simulation, Renderer's to rendering.
+* Transforms are the only component kept this way. Sprite color and texture are read just for changed sprites,
+* component update() is game logic, so both stay on their objects, see README.
+* */
+public class TransformStore {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private final int INITIAL_CAPACITY = 64;
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    float[] x;
+    float[] y;
+    float[] scaleX;
+    float[] scaleY;
+    long[] versions; // bumped by Transform on every change
+    private long[] takenVersions; // versions as of last takeChanged()
+
+    private int size; // ids below this were handed out at some point
+    private int[] freeIds;
+    private int numFree;
+    private int numAlive;
+    // -----------------------------------------------------------------------
+
+    public TransformStore() {
+        x = new float[INITIAL_CAPACITY];
+        y = new float[INITIAL_CAPACITY];
+        scaleX = new float[INITIAL_CAPACITY];
+        scaleY = new float[INITIAL_CAPACITY];
+        versions = new long[INITIAL_CAPACITY];
+        takenVersions = new long[INITIAL_CAPACITY];
+        freeIds = new int[INITIAL_CAPACITY];
+    }
+
+    /*
+    * Hands out id for new transform, freed ids first. Values of the id are whatever was there before, set them.
+    * */
+    int allocate() {
+        numAlive++;
+        if (numFree > 0) {
+            return freeIds[--numFree];
+        }
+        if (size == x.length) {
+            int capacity = size * 2;
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            scaleX = Arrays.copyOf(scaleX, capacity);
+            scaleY = Arrays.copyOf(scaleY, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            takenVersions = Arrays.copyOf(takenVersions, capacity);
+            freeIds = Arrays.copyOf(freeIds, capacity);
+        }
+        return size++;
+    }
+
+    void free(int id) {
+        numAlive--;
+        freeIds[numFree++] = id;
+    }
+
+    /*
+    * Sets values and version of the id, and remembers it as unchanged.
+    * */
+    void set(int id, float x, float y, float scaleX, float scaleY, long version) {
+        this.x[id] = x;
+        this.y[id] = y;
+        this.scaleX[id] = scaleX;
+        this.scaleY[id] = scaleY;
+        versions[id] = version;
+        takenVersions[id] = version;
+    }
+
+    /*
+    * true when transform with given id changed since previous call for it (or since it was attached).
+    * Compares one long, values are not looked at.
+    * */
+    public boolean takeChanged(int id) {
+        long version = versions[id];
+        if (version == takenVersions[id]) {
+            return false;
+        }
+        takenVersions[id] = version;
+        return true;
+    }
+
+    public long version(int id) {
+        return versions[id];
+    }
+
+    /*
+    * All ids ever handed out are below this, freed ids among them too.
+    * */
+    public int size() {
+        return this.size;
+    }
+
+    public int getNumAlive() {
+        return this.numAlive;
+    }
+}
@@ -4,6 +4,11 @@ import org.lwjgl.*;
 import org.lwjgl.glfw.*;
 import org.lwjgl.opengl.*;
 import org.lwjgl.system.*;
+import profiling.FrameEvent;
+import profiling.FramePhaseEvent;
+import profiling.FrameStats;
+import renderer.GLState;
+import renderer.Renderer;
 
 import java.nio.*;
 import static org.lwjgl.glfw.Callbacks.*;
@@ -14,13 +19,25 @@ import static org.lwjgl.system.MemoryUtil.*;
 
 public class Window {
     //--------------------- Params ---------------------
-    private int width;
-    private int height;
+    // framebuffer size in pixels, and window size in screen coordinates (the ones mouse position is in).
+    // On HiDPI screens they differ. Kept up to date by GLFW callbacks on main thread, read by simulation thread too.
+    private volatile int width;
+    private volatile int height;
+    private volatile int windowWidth;
+    private volatile int windowHeight;
     private String title;
     private long glfwWindow;
 
     public float r, g, b, a;
     private boolean fadeToBlack = false;
+    private boolean threaded = false; // run Scene.update() on simulation thread, see loopThreaded()
+    private volatile boolean simulating;
+    private long frame; // frames rendered, numbers FrameEvent's
+    private FrameStats frameStats = new FrameStats(); // frame and update time percentiles, dumped with F12 and on exit
+    private final int MAX_TICKS_PER_FRAME = 5; // simulation further behind than this slows down instead of catching up
+    private FixedTimestep timestep = new FixedTimestep(60, MAX_TICKS_PER_FRAME);
+    private FramePacer pacer = new FramePacer(FramePacing.VSYNC, 0);
+    private boolean interpolation = true; // draw between last two ticks, see Scene.interpolate()
 
     // only one instance of window:
     private static Window window;
@@ -36,6 +53,8 @@ public class Window {
     private Window (){
         this.width = 1920;
         this.height = 1080;
+        this.windowWidth = width;
+        this.windowHeight = height;
         this.title = "Platformer";
 
         r=1;
@@ -82,6 +101,7 @@ public class Window {
         System.out.println("Konichiwa! LWJGL version: " + Version.getVersion() + "!" + " GL version: " + GLFW_VERSION_MAJOR + GLFW_VERSION_MINOR + GLFW_VERSION_REVISION );
         init();
         loop();
+        dumpFrameStats();
 
         // Free the momory once loop has exit:
         glfwFreeCallbacks(glfwWindow);
@@ -120,11 +140,28 @@ public class Window {
          * returns a long number, which a place in memory where this window is stored.
          * last two parameters are Monitor, and Sharing. Uses default monitor.
          */
-        glfwWindow = glfwCreateWindow(this.width, this.height, this.title, NULL, NULL);
+        glfwWindow = glfwCreateWindow(this.windowWidth, this.windowHeight, this.title, NULL, NULL);
         if (glfwWindow == NULL) {
             throw new RuntimeException("Failed to create the GLFW Window");
         }
 
+        // real sizes may differ from requested ones (HiDPI, window manager), and change with resize or maximize
+        try (MemoryStack stack = stackPush()) {
+            IntBuffer w = stack.mallocInt(1);
+            IntBuffer h = stack.mallocInt(1);
+            glfwGetFramebufferSize(glfwWindow, w, h);
+            this.width = w.get(0);
+            this.height = h.get(0);
+            glfwGetWindowSize(glfwWindow, w, h);
+            this.windowWidth = w.get(0);
+            this.windowHeight = h.get(0);
+        }
+        glfwSetFramebufferSizeCallback(glfwWindow, this::framebufferSizeCallback);
+        glfwSetWindowSizeCallback(glfwWindow, (handle, newWidth, newHeight) -> {
+            this.windowWidth = newWidth;
+            this.windowHeight = newHeight;
+        });
+
         // :: shortcut for lambda function x->(x)
         // mouse listeners from MouseListener helper
         glfwSetCursorPosCallback(glfwWindow, MouseListener::mousePosCallback);
@@ -133,12 +170,13 @@ public class Window {
 
         // Keyboard key buttons clicked listeners from KeyListener:
         glfwSetKeyCallback(glfwWindow, KeyListener::keyCallback);
+        KeyListener.onKeyPress(GLFW_KEY_F12, this::dumpFrameStats);
 
         // Make the OpenGL context current:
         glfwMakeContextCurrent(glfwWindow);
 
-        // enable v-sync. swap every single frame. Creates uniform Framerate depending on your monitor.
-        glfwSwapInterval(1);
+        // v-sync on or off, depending on frame pacing. v-sync creates uniform Framerate depending on your monitor.
+        pacer.start();
 
         // Make the window visible
         glfwShowWindow(glfwWindow);
@@ -151,6 +189,7 @@ public class Window {
         // creates the GLCapabilities instance and makes the OpenGL
         // bindings available for use.
         GL.createCapabilities();
+        GLState.reset(); // new context starts with nothing bound
 
         /* Configure GLFW
          * defines if windows should be visible, etc..
@@ -165,8 +204,8 @@ public class Window {
         * then we allow blending:
         * gl one - gl minus alpha is most common one to use
         * */
-        glEnable(GL_BLEND);
-        glBlendFunc(GL_ONE, GL_ONE_MINUS_SRC_ALPHA);
+        GLState.setBlend(true);
+        GLState.blendFunc(GL_ONE, GL_ONE_MINUS_SRC_ALPHA);
 
 
         /*
@@ -175,36 +214,234 @@ public class Window {
         Window.changeScene(0);
     }
 
+    /*
+    * Has to be set before run(). Threaded mode runs game logic on its own thread,
+    * so slow update does not hold back drawing and waiting for v-sync does not hold back game logic.
+    * */
+    public void setThreaded(boolean threaded) {
+        this.threaded = threaded;
+    }
+
+    /*
+    * Has to be set before run(). Scene.update() runs tickRate times per second, dt is always 1 / tickRate.
+    * */
+    public void setTickRate(int tickRate) {
+        this.timestep = new FixedTimestep(tickRate, MAX_TICKS_PER_FRAME);
+    }
+
+    /*
+    * Has to be set before run(). targetFps is used only with FramePacing.TARGET_FPS.
+    * */
+    public void setFramePacing(FramePacing pacing, int targetFps) {
+        this.pacer = new FramePacer(pacing, targetFps);
+    }
+
+    /*
+    * Without interpolation sprites are drawn where the latest tick left them, motion stutters when
+    * frame rate is not a multiple of tick rate, but drawn state is not one tick behind.
+    * */
+    public void setInterpolation(boolean interpolation) {
+        this.interpolation = interpolation;
+    }
+
     public void loop () {
-        // time when frame started
-        float beginTime = (float)glfwGetTime();
-        // time when frame ended
-        float endTime; // = Time.getTime();
-        float dt = -1.0f;
+        if (threaded) {
+            loopThreaded();
+            return;
+        }
+
+        long frameStart = System.nanoTime();
+        timestep.start(frameStart);
 
         while (!glfwWindowShouldClose(glfwWindow)) {
+            FrameEvent frameEvent = FrameEvent.start();
+
             // Poll events, key events, mouse events:
+            FramePhaseEvent phase = FramePhaseEvent.start(FramePhaseEvent.POLL);
             glfwPollEvents();
+            FramePhaseEvent.end(phase);
 
             // colors represent R G B + alpha
             glClearColor(r, g, b, a);
             glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
-            // update color only when time passes. not initially. lag of 2 frames.
-            if (dt >= 0) {
-                currentScene.update(dt);
+            // as many fixed ticks as fit into time passed since last frame, maybe none
+            long now = System.nanoTime();
+            timestep.beginFrame(now);
+            while (timestep.step()) {
+                tick(currentScene);
             }
 
-            glfwSwapBuffers(glfwWindow);
+            // same path as threaded mode, renderer draws what update() published
+            phase = FramePhaseEvent.start(FramePhaseEvent.SNAPSHOT);
+            currentScene.applySnapshot();
+            currentScene.interpolate(interpolationAlpha(now, currentScene));
+            FramePhaseEvent.end(phase);
+            currentScene.render(); // prepare, upload, cull and draw phases are timed by Renderer
+
+            endFrame(frameEvent, currentScene);
+            long frameEnd = System.nanoTime();
+            frameStats.recordFrame(frameEnd - frameStart);
+            frameStart = frameEnd;
+        }
+    }
+
+    /*
+    * Main thread polls events and draws, simulation thread runs Scene.update().
+    * They share only snapshots (Scene.publishSnapshot / applySnapshot) and input latched by the listeners.
+    * Render thread never waits for simulation, it draws last published state when update() takes longer.
+    * */
+    private void loopThreaded() {
+        Scene scene = currentScene;
+        simulating = true;
+        timestep.start(System.nanoTime());
+        Thread simulation = new Thread(() -> simulate(scene), "simulation");
+        simulation.start();
+        long frameStart = System.nanoTime();
+
+        while (!glfwWindowShouldClose(glfwWindow) && simulation.isAlive()) {
+            FrameEvent frameEvent = FrameEvent.start();
+
+            FramePhaseEvent phase = FramePhaseEvent.start(FramePhaseEvent.POLL);
+            glfwPollEvents();
+            FramePhaseEvent.end(phase);
+
+            glClearColor(r, g, b, a);
+            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+
+            phase = FramePhaseEvent.start(FramePhaseEvent.SNAPSHOT);
+            scene.applySnapshot();
+            scene.interpolate(interpolationAlpha(System.nanoTime(), scene));
+            FramePhaseEvent.end(phase);
+            scene.render();
+
+            endFrame(frameEvent, scene);
+            long frameEnd = System.nanoTime();
+            frameStats.recordFrame(frameEnd - frameStart);
+            frameStart = frameEnd;
+        }
+
+        simulating = false;
+        try {
+            simulation.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            /*
-             * endTime gets the time that is right now after all operations in loop are already completed
-             * dt is delta time of that time passed
-             * beginTime is current time after operation is finished.
-             */
-            endTime = (float)glfwGetTime();
-            dt = endTime - beginTime;
-            beginTime = endTime;
+    /*
+    * Simulation thread, runs ticks on time and sleeps in between. It does not wait for rendering,
+    * when render thread falls behind, snapshots of several ticks are merged.
+    * */
+    private void simulate(Scene scene) {
+        while (simulating) {
+            timestep.beginFrame(System.nanoTime());
+            while (timestep.step()) {
+                tick(scene);
+            }
+            timestep.waitForNextTick();
+        }
+    }
+
+    /*
+    * One fixed step of simulation, input latched for it is what arrived since previous tick.
+    * */
+    private void tick(Scene scene) {
+        KeyListener.beginFrame();
+        MouseListener.beginFrame();
+
+        FramePhaseEvent phase = FramePhaseEvent.start(FramePhaseEvent.UPDATE);
+        long updateStart = System.nanoTime();
+        scene.update(timestep.getDeltaTime());
+        frameStats.recordUpdate(System.nanoTime() - updateStart);
+        FramePhaseEvent.end(phase);
+
+        phase = FramePhaseEvent.start(FramePhaseEvent.SNAPSHOT);
+        scene.publishSnapshot(timestep.getSimulatedTime());
+        FramePhaseEvent.end(phase);
+    }
+
+    private float interpolationAlpha(long now, Scene scene) {
+        return interpolation ? timestep.alpha(now, scene.renderTickTime()) : 1.0f;
+    }
+
+    /*
+    * Swaps buffers, waits for next frame when frame rate is limited, and reports the frame.
+    * */
+    private void endFrame(FrameEvent frameEvent, Scene scene) {
+        FramePhaseEvent phase = FramePhaseEvent.start(FramePhaseEvent.SWAP);
+        glfwSwapBuffers(glfwWindow);
+        FramePhaseEvent.end(phase);
+
+        phase = FramePhaseEvent.start(FramePhaseEvent.PACE);
+        pacer.waitForNextFrame();
+        FramePhaseEvent.end(phase);
+
+        commitFrame(frameEvent, scene);
+    }
+
+    /*
+    * Writes percentiles of recent frame and update times next to the game, see FrameStats.
+    * */
+    public void dumpFrameStats() {
+        frameStats.dump(currentScene != null ? currentScene.getClass().getSimpleName() : "none");
+    }
+
+    /*
+    * Called from glfwPollEvents() on main thread, where GL context is current, so viewport follows the new size.
+    * */
+    private void framebufferSizeCallback(long glfwWindow, int newWidth, int newHeight) {
+        this.width = newWidth;
+        this.height = newHeight;
+        glViewport(0, 0, newWidth, newHeight);
+    }
+
+    /*
+    * Size of the framebuffer in pixels.
+    * */
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /*
+    * Size of the window in screen coordinates, the same ones mouse position is in.
+    * */
+    public int getWindowWidth() {
+        return this.windowWidth;
+    }
+
+    public int getWindowHeight() {
+        return this.windowHeight;
+    }
+
+    public FrameStats frameStats() {
+        return this.frameStats;
+    }
+
+    /*
+    * Ends frame event with counters of the frame just drawn. Counters are read only when a recording wants the event,
+    * frameEvent is null when none does.
+    * */
+    private void commitFrame(FrameEvent frameEvent, Scene scene) {
+        frame++;
+        if (frameEvent == null) {
+            return;
+        }
+        frameEvent.end();
+        if (frameEvent.shouldCommit()) {
+            Renderer renderer = scene.renderer();
+            frameEvent.frame = frame;
+            frameEvent.drawCalls = renderer.getDrawCalls();
+            frameEvent.spritesDrawn = renderer.getSpritesDrawn();
+            frameEvent.spritesCulled = renderer.getCulledSprites();
+            frameEvent.bytesUploaded = renderer.getBytesUploaded();
+            frameEvent.textureBinds = GLState.getTextureBinds();
+            frameEvent.elidedCalls = GLState.getElidedCalls();
+            frameEvent.commit();
         }
     }
 }
@@ -0,0 +1,30 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+* Vertices of one batch rebuilt during prepare phase. Batches can be prepared on worker threads,
+* so these show up on the thread that did the work. Only batches with dirty sprites are recorded.
+* */
+@Name("domo.BatchRebuild")
+@Label("Batch Rebuild")
+@Category({"Domo", "Renderer"})
+@Description("Vertices of dirty sprites of one batch rebuilt")
+@StackTrace(false)
+public class BatchRebuildEvent extends Event {
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    @Label("Z-Index")
+    public int zIndex;
+
+    @Label("Sprites In Batch")
+    public int sprites;
+
+    @Label("Sprites Rebuilt")
+    public int spritesRebuilt;
+    // -----------------------------------------------------------------------
+}
@@ -0,0 +1,62 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+* Whole frame on render thread, from polling events to swapping buffers, with renderer counters of that frame.
+* FramePhaseEvent's of the same thread inside of it tell where the time went.
+* Like them it is allocated only when a recording wants it, see start().
+* */
+@Name("domo.Frame")
+@Label("Frame")
+@Category({"Domo", "Frame"})
+@Description("One rendered frame with renderer counters")
+@StackTrace(false)
+public class FrameEvent extends Event {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private static final EventType TYPE = EventType.getEventType(FrameEvent.class);
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    @Label("Frame")
+    public long frame;
+
+    @Label("Draw Calls")
+    public int drawCalls;
+
+    @Label("Sprites Drawn")
+    public int spritesDrawn;
+
+    @Label("Sprites Culled")
+    public int spritesCulled;
+
+    @Label("Bytes Uploaded")
+    @DataAmount
+    public long bytesUploaded;
+
+    @Label("Texture Binds")
+    public int textureBinds;
+
+    @Label("Elided GL Calls")
+    @Description("State changes skipped because state was already set")
+    public int elidedCalls;
+    // -----------------------------------------------------------------------
+
+    /*
+    * Begun event for the frame starting now, null when the event is not enabled in any recording.
+    * */
+    public static FrameEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,62 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+* Time spent in one phase of a frame, for Java Flight Recorder.
+* When no recording wants it, start() returns null and nothing is allocated, end() takes that null.
+* Recorded with: jcmd <pid> JFR.start name=frames filename=frames.jfr
+* */
+@Name("domo.FramePhase")
+@Label("Frame Phase")
+@Category({"Domo", "Frame"})
+@Description("Time spent in one phase of a frame")
+@StackTrace(false)
+public class FramePhaseEvent extends Event {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    public static final String POLL = "poll";         // glfwPollEvents, input callbacks
+    public static final String UPDATE = "update";     // Scene.update(), game logic
+    public static final String SNAPSHOT = "snapshot"; // publishing and applying snapshot to renderer
+    public static final String PREPARE = "prepare";   // vertices of dirty sprites rebuilt, see BatchRebuildEvent
+    public static final String UPLOAD = "upload";     // vertex buffers uploaded to GPU
+    public static final String CULL = "cull";         // draw lists built from camera view
+    public static final String DRAW = "draw";         // draw calls of all batches
+    public static final String SWAP = "swap";         // glfwSwapBuffers, includes waiting for v-sync
+    public static final String PACE = "pace";         // waiting for next frame, when frame rate is limited, see FramePacer
+
+    private static final EventType TYPE = EventType.getEventType(FramePhaseEvent.class);
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    @Label("Phase")
+    private String phase;
+    // -----------------------------------------------------------------------
+
+    private FramePhaseEvent(String phase) {
+        this.phase = phase;
+    }
+
+    /*
+    * Starts timing given phase, pass the returned event to end() when phase is done.
+    * Returns null when the event is not enabled in any recording.
+    * */
+    public static FramePhaseEvent start(String phase) {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        FramePhaseEvent event = new FramePhaseEvent(phase);
+        event.begin();
+        return event;
+    }
+
+    public static void end(FramePhaseEvent event) {
+        if (event != null) {
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package profiling;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/*
+* Frame times and update times of the main loop over the last WINDOW_SIZE frames, see FrameTimeHistogram.
+* dump() writes p50, p95, p99, p99.9 and max of both into CSV and JSON file, so builds and scenes can be compared.
+* Window records frame times on render thread, update times come from whichever thread runs Scene.update().
+* */
+public class FrameStats {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    public static final int WINDOW_SIZE = 3600; // a minute at 60 frames per second
+    private static final double[] PERCENTILES = {0.50, 0.95, 0.99, 0.999};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p95", "p99", "p99_9"};
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private final FrameTimeHistogram frameTimes = new FrameTimeHistogram(WINDOW_SIZE);
+    private final FrameTimeHistogram updateTimes = new FrameTimeHistogram(WINDOW_SIZE);
+    private Path directory; // where dump() writes files
+    // -----------------------------------------------------------------------
+
+    public FrameStats() {
+        this(Path.of("."));
+    }
+
+    public FrameStats(Path directory) {
+        this.directory = directory;
+    }
+
+    /*
+    * Time from start of one frame to start of the next one, includes waiting for v-sync.
+    * */
+    public void recordFrame(long nanos) {
+        frameTimes.record(nanos);
+    }
+
+    /*
+    * Time spent in Scene.update() during one tick.
+    * */
+    public void recordUpdate(long nanos) {
+        updateTimes.record(nanos);
+    }
+
+    public FrameTimeHistogram frameTimes() {
+        return this.frameTimes;
+    }
+
+    public FrameTimeHistogram updateTimes() {
+        return this.updateTimes;
+    }
+
+    /*
+    * Writes frame-stats-<time>.csv and frame-stats-<time>.json, label says what was measured, for example scene name.
+    * Times are in milliseconds. Returns path of CSV file, null when files could not be written.
+    * */
+    public Path dump(String label) {
+        String name = "frame-stats-" + LocalDateTime.now().format(FILE_TIME);
+        Path csv = directory.resolve(name + ".csv");
+        Path json = directory.resolve(name + ".json");
+        try {
+            Files.createDirectories(directory);
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv))) {
+                writeCsv(out, label);
+            }
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(json))) {
+                writeJson(out, label);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            assert false : "Error: could not write frame stats to: " + csv;
+            return null;
+        }
+        System.out.println(summary("frame", frameTimes) + ", " + summary("update", updateTimes) + " -> " + csv);
+        return csv;
+    }
+
+    private void writeCsv(PrintWriter out, String label) {
+        out.print("label,metric,samples,mean");
+        for (String p : PERCENTILE_NAMES) {
+            out.print("," + p);
+        }
+        out.println(",max");
+        writeCsvRow(out, label, "frame_ms", frameTimes);
+        writeCsvRow(out, label, "update_ms", updateTimes);
+    }
+
+    private void writeCsvRow(PrintWriter out, String label, String metric, FrameTimeHistogram histogram) {
+        out.print(label.replace(',', ' ') + "," + metric + "," + histogram.getNumSamples() + "," + ms(histogram.mean()));
+        for (double p : PERCENTILES) {
+            out.print("," + ms(histogram.percentile(p)));
+        }
+        out.println("," + ms(histogram.max()));
+    }
+
+    private void writeJson(PrintWriter out, String label) {
+        out.println("{");
+        out.println("  \"label\": \"" + label.replace("\\", "\\\\").replace("\"", "\\\"") + "\",");
+        out.println("  \"windowSize\": " + WINDOW_SIZE + ",");
+        out.println("  \"totalFrames\": " + frameTimes.getTotalSamples() + ",");
+        writeJsonMetric(out, "frame_ms", frameTimes);
+        out.println(",");
+        writeJsonMetric(out, "update_ms", updateTimes);
+        out.println();
+        out.println("}");
+    }
+
+    private void writeJsonMetric(PrintWriter out, String metric, FrameTimeHistogram histogram) {
+        out.print("  \"" + metric + "\": {\"samples\": " + histogram.getNumSamples() + ", \"mean\": " + ms(histogram.mean()));
+        for (int i=0; i< PERCENTILES.length; i++) {
+            out.print(", \"" + PERCENTILE_NAMES[i] + "\": " + ms(histogram.percentile(PERCENTILES[i])));
+        }
+        out.print(", \"max\": " + ms(histogram.max()) + "}");
+    }
+
+    private String summary(String metric, FrameTimeHistogram histogram) {
+        return metric + " p50 " + ms(histogram.percentile(0.50)) + " p99 " + ms(histogram.percentile(0.99))
+                + " max " + ms(histogram.max()) + " ms";
+    }
+
+    private static String ms(double micros) {
+        return String.format(Locale.ROOT, "%.3f", micros / 1000.0);
+    }
+}
@@ -0,0 +1,124 @@
+package profiling;
+
+import java.util.Arrays;
+
+/*
+* Durations of the last windowSize samples, counted in log-linear buckets of microseconds.
+* Values below 128 us have a bucket each, above that every power of two is split into 128 buckets,
+* so any percentile is off by less than 1%. Buckets and window are allocated once, record() allocates nothing.
+* Oldest sample leaves its bucket when window is full, so percentiles always describe recent frames, not whole run.
+* Recording and reading can happen on different threads, both are synchronized.
+* */
+public class FrameTimeHistogram {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private static final int SUB_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS; // buckets per power of two
+    private static final int MAX_EXPONENT = 30; // samples are int us, so up to 2^31 us (~35 minutes)
+    private static final int NUM_BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BITS + 1) * SUB_BUCKETS;
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private final int[] counts = new int[NUM_BUCKETS];
+    private final int[] window; // samples in us, ring buffer
+    private int next; // where next sample goes in window
+    private int numSamples;
+    private long sum; // of samples in window, for mean
+    private long totalSamples; // recorded since start or reset(), also those that left the window
+    // -----------------------------------------------------------------------
+
+    public FrameTimeHistogram(int windowSize) {
+        this.window = new int[windowSize];
+    }
+
+    public synchronized void record(long nanos) {
+        int micros = (int)Math.min(Integer.MAX_VALUE, Math.max(0, nanos / 1000));
+        if (numSamples == window.length) {
+            int oldest = window[next];
+            counts[bucketOf(oldest)]--;
+            sum -= oldest;
+        } else {
+            numSamples++;
+        }
+        window[next] = micros;
+        next = (next + 1) % window.length;
+        counts[bucketOf(micros)]++;
+        sum += micros;
+        totalSamples++;
+    }
+
+    /*
+    * Value in us below which given fraction of samples in window are, for example 0.99 for p99.
+    * Middle of the bucket is returned, but never more than actual max. 0 when nothing was recorded.
+    * */
+    public synchronized int percentile(double fraction) {
+        if (numSamples == 0) {
+            return 0;
+        }
+        // rank of the sample, 1 based: p50 of 4 samples is the 2nd one
+        long rank = Math.max(1, (long)Math.ceil(fraction * numSamples));
+        long seen = 0;
+        for (int i=0; i< NUM_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketLow(i) + (bucketWidth(i) - 1) / 2, max());
+            }
+        }
+        return max();
+    }
+
+    /*
+    * Exact longest sample in window.
+    * */
+    public synchronized int max() {
+        int max = 0;
+        for (int i=0; i< numSamples; i++) {
+            max = Math.max(max, window[i]);
+        }
+        return max;
+    }
+
+    public synchronized double mean() {
+        return numSamples == 0 ? 0 : (double)sum / numSamples;
+    }
+
+    public synchronized int getNumSamples() {
+        return this.numSamples;
+    }
+
+    public synchronized long getTotalSamples() {
+        return this.totalSamples;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        next = 0;
+        numSamples = 0;
+        sum = 0;
+        totalSamples = 0;
+    }
+
+    private static int bucketOf(int micros) {
+        if (micros < SUB_BUCKETS) {
+            return micros;
+        }
+        int exponent = 31 - Integer.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BITS;
+        int sub = (micros >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    private static int bucketLow(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << shift;
+    }
+
+    private static int bucketWidth(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return 1;
+        }
+        return 1 << ((bucket - SUB_BUCKETS) / SUB_BUCKETS);
+    }
+}
@@ -0,0 +1,152 @@
+package renderer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+* All batches of one z-index, static or not, with lookups that find a batch with room for a texture without scanning.
+* Lookups may hold batches which filled up since, they are checked and dropped when found.
+* */
+class BatchLayer {
+    private int zIndex;
+    private boolean isStatic;
+    private List<RenderBatch> batches;
+    private Map<Texture, RenderBatch> openByTexture;     // batch with room which already binds the texture
+    private Map<TextureArray, RenderBatch> openByArray;  // batch with room drawing from the texture array
+    private RenderBatch openWithTextureRoom;             // batch with room and free texture slot
+    private RenderBatch lastOpen;                        // any batch with room, for sprites without texture
+
+    BatchLayer(int zIndex, boolean isStatic) {
+        this.zIndex = zIndex;
+        this.isStatic = isStatic;
+        this.batches = new ArrayList<>();
+        this.openByTexture = new HashMap<>();
+        this.openByArray = new HashMap<>();
+    }
+
+    /*
+    * Batch that can take sprite with given texture, or null if new batch is needed.
+    * */
+    RenderBatch findBatch(Texture tex) {
+        if (tex == null) {
+            return lastOpen != null && lastOpen.hasRoom() ? lastOpen : null;
+        }
+
+        if (tex.isArrayLayer()) {
+            RenderBatch batch = openByArray.get(tex.getArray());
+            if (batch != null && !batch.hasRoom()) {
+                openByArray.remove(tex.getArray());
+                batch = null;
+            }
+            return batch;
+        }
+
+        RenderBatch batch = openByTexture.get(tex);
+        if (batch != null && batch.hasRoom() && (batch.hasTexture(tex) || batch.hasTextureRoom())) {
+            return batch;
+        }
+        if (batch != null) {
+            openByTexture.remove(tex);
+        }
+        if (openWithTextureRoom != null && openWithTextureRoom.hasRoom() && openWithTextureRoom.hasTextureRoom()) {
+            return openWithTextureRoom;
+        }
+        return null;
+    }
+
+    void addBatch(RenderBatch batch) {
+        batches.add(batch);
+        if (batch.getTextureArray() != null) {
+            openByArray.put(batch.getTextureArray(), batch);
+        } else {
+            openWithTextureRoom = batch;
+        }
+        lastOpen = batch;
+    }
+
+    /*
+    * Updates lookups after sprite with texture was added to batch.
+    * */
+    void spriteAdded(RenderBatch batch, Texture tex) {
+        if (!batch.hasRoom()) {
+            if (lastOpen == batch) {
+                lastOpen = null;
+            }
+            if (openWithTextureRoom == batch) {
+                openWithTextureRoom = null;
+            }
+            return;
+        }
+        if (tex != null && !tex.isArrayLayer()) {
+            openByTexture.put(tex, batch);
+            if (openWithTextureRoom == batch && !batch.hasTextureRoom()) {
+                openWithTextureRoom = null;
+            }
+        }
+    }
+
+    /*
+    * Batch got room back after sprite with texture was removed from it.
+    * When it was the last sprite with that texture, batch does not bind the texture anymore and is not its open batch.
+    * */
+    void spriteRemoved(RenderBatch batch, Texture tex) {
+        if (tex != null && !tex.isArrayLayer() && !batch.hasTexture(tex) && openByTexture.get(tex) == batch) {
+            openByTexture.remove(tex);
+        }
+        lastOpen = batch;
+        if (batch.getTextureArray() != null) {
+            openByArray.put(batch.getTextureArray(), batch);
+        } else if (batch.hasTextureRoom()) {
+            openWithTextureRoom = batch;
+        }
+    }
+
+    void removeBatch(RenderBatch batch) {
+        batches.remove(batch);
+        openByTexture.values().removeIf(b -> b == batch);
+        openByArray.values().removeIf(b -> b == batch);
+        if (openWithTextureRoom == batch) {
+            openWithTextureRoom = null;
+        }
+        if (lastOpen == batch) {
+            lastOpen = null;
+        }
+    }
+
+    boolean isEmpty() {
+        return batches.isEmpty();
+    }
+
+    List<RenderBatch> getBatches() {
+        return this.batches;
+    }
+
+    int zIndex() {
+        return this.zIndex;
+    }
+
+    boolean isStatic() {
+        return this.isStatic;
+    }
+
+    long key() {
+        return key(zIndex, isStatic);
+    }
+
+    /*
+    * Layers are sorted by this key: by z-index, and static layer goes before other layer of the same z-index.
+    * */
+    static long key(int zIndex, boolean isStatic) {
+        return ((long)zIndex << 1) | (isStatic ? 0 : 1);
+    }
+
+    static int zIndex(long key) {
+        return (int)(key >> 1);
+    }
+
+    static boolean isStatic(long key) {
+        return (key & 1) == 0;
+    }
+}
@@ -0,0 +1,62 @@
+package renderer;
+
+import domo.Camera;
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL31.GL_UNIFORM_BUFFER;
+import static renderer.Graphics.device;
+
+/*
+* Uniform buffer with camera matrices, shared by all shaders that declare 'Camera' uniform block:
+*   layout (std140) uniform Camera { mat4 uProjection; mat4 uView; };
+* Written at most once per frame, instead of uploading both matrices to every batch,
+* and not at all while the camera stays where it was.
+* */
+public class CameraUniforms {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    public static final String BLOCK_NAME = "Camera";
+    public static final int BINDING = 0; // uniform buffer binding point of Camera block
+    private final int MAT4_FLOATS = 16;
+    private final int BLOCK_BYTES = 2 * MAT4_FLOATS * Float.BYTES; // std140, two mat4 are tightly packed
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private int uboID;
+    private Camera uploadedCamera; // camera and its version whose matrices are in the buffer
+    private long uploadedVersion;
+    // -----------------------------------------------------------------------
+
+    public void start() {
+        uboID = device().genBuffers();
+        device().bindBuffer(GL_UNIFORM_BUFFER, uboID);
+        device().bufferData(GL_UNIFORM_BUFFER, BLOCK_BYTES, GL_DYNAMIC_DRAW);
+        device().bindBuffer(GL_UNIFORM_BUFFER, 0);
+        device().bindBufferBase(GL_UNIFORM_BUFFER, BINDING, uboID);
+    }
+
+    /*
+    * Uploads projection and view matrix of the camera, call once per frame before batches are drawn.
+    * Does nothing when the same camera did not change since last upload.
+    * */
+    public void update(Camera camera) {
+        if (camera == uploadedCamera && camera.version() == uploadedVersion) {
+            return;
+        }
+        uploadedCamera = camera;
+        uploadedVersion = camera.version();
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer matrices = stack.mallocFloat(2 * MAT4_FLOATS);
+            camera.getProjectionMatrix().get(0, matrices);
+            camera.getViewMatrix().get(MAT4_FLOATS, matrices);
+            device().bindBuffer(GL_UNIFORM_BUFFER, uboID);
+            device().bufferSubData(GL_UNIFORM_BUFFER, 0, matrices);
+            device().bindBuffer(GL_UNIFORM_BUFFER, 0);
+        }
+    }
+
+    public void destroy() {
+        device().deleteBuffers(uboID);
+    }
+}
@@ -0,0 +1,187 @@
+package renderer;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.GL_TEXTURE0;
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL30.GL_TEXTURE_2D_ARRAY;
+import static renderer.Graphics.device;
+
+/*
+* Remembers what is currently bound in GL context, so binding what is already bound costs no GL call.
+* Shader, Texture, TextureArray, VertexStream and batches bind through here instead of calling GL directly,
+* otherwise the cached state would not match the context anymore.
+* Element buffer binding is part of vao state, it is not tracked here.
+* */
+public class GLState {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private static final int MAX_TEXTURE_UNITS = 32;
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private static int program = 0;
+    private static int vertexArray = 0;
+    private static int arrayBuffer = 0;
+    private static int activeUnit = 0;
+    private static int[] textures2D = new int[MAX_TEXTURE_UNITS]; // texture bound to GL_TEXTURE_2D of each unit
+    private static int[] textureArrays = new int[MAX_TEXTURE_UNITS]; // texture bound to GL_TEXTURE_2D_ARRAY of each unit
+    private static boolean blend = false;
+    private static int blendSrc = GL_ONE;
+    private static int blendDst = GL_ZERO;
+
+    private static int issuedCalls; // GL calls made since resetCounters()
+    private static int elidedCalls; // calls skipped since resetCounters(), because state was already set
+    private static int textureBinds; // issued texture binds since resetCounters(), part of issuedCalls
+    // -----------------------------------------------------------------------
+
+    private GLState() {
+    }
+
+    public static void useProgram(int id) {
+        if (program == id) {
+            elidedCalls++;
+            return;
+        }
+        device().useProgram(id);
+        program = id;
+        issuedCalls++;
+    }
+
+    public static void bindVertexArray(int id) {
+        if (vertexArray == id) {
+            elidedCalls++;
+            return;
+        }
+        device().bindVertexArray(id);
+        vertexArray = id;
+        issuedCalls++;
+    }
+
+    public static void bindArrayBuffer(int id) {
+        if (arrayBuffer == id) {
+            elidedCalls++;
+            return;
+        }
+        device().bindBuffer(GL_ARRAY_BUFFER, id);
+        arrayBuffer = id;
+        issuedCalls++;
+    }
+
+    /*
+    * unit is index of texture unit, 0 for GL_TEXTURE0.
+    * */
+    public static void activeTexture(int unit) {
+        if (activeUnit == unit) {
+            elidedCalls++;
+            return;
+        }
+        device().activeTexture(GL_TEXTURE0 + unit);
+        activeUnit = unit;
+        issuedCalls++;
+    }
+
+    /*
+    * Binds texture to target (GL_TEXTURE_2D or GL_TEXTURE_2D_ARRAY) of the active texture unit.
+    * */
+    public static void bindTexture(int target, int id) {
+        int[] bound = target == GL_TEXTURE_2D_ARRAY ? textureArrays : textures2D;
+        if (bound[activeUnit] == id) {
+            elidedCalls++;
+            return;
+        }
+        device().bindTexture(target, id);
+        bound[activeUnit] = id;
+        issuedCalls++;
+        textureBinds++;
+    }
+
+    public static void setBlend(boolean enabled) {
+        if (blend == enabled) {
+            elidedCalls++;
+            return;
+        }
+        if (enabled) {
+            device().enable(GL_BLEND);
+        } else {
+            device().disable(GL_BLEND);
+        }
+        blend = enabled;
+        issuedCalls++;
+    }
+
+    public static void blendFunc(int src, int dst) {
+        if (blendSrc == src && blendDst == dst) {
+            elidedCalls++;
+            return;
+        }
+        device().blendFunc(src, dst);
+        blendSrc = src;
+        blendDst = dst;
+        issuedCalls++;
+    }
+
+    /*
+    * Deleting bound object makes GL bind 0 in its place, these keep cached state the same as GL.
+    * */
+    public static void programDeleted(int id) {
+        if (program == id) {
+            program = 0;
+        }
+    }
+
+    public static void vertexArrayDeleted(int id) {
+        if (vertexArray == id) {
+            vertexArray = 0;
+        }
+    }
+
+    public static void bufferDeleted(int id) {
+        if (arrayBuffer == id) {
+            arrayBuffer = 0;
+        }
+    }
+
+    public static void textureDeleted(int id) {
+        for (int i=0; i< MAX_TEXTURE_UNITS; i++) {
+            if (textures2D[i] == id) {
+                textures2D[i] = 0;
+            }
+            if (textureArrays[i] == id) {
+                textureArrays[i] = 0;
+            }
+        }
+    }
+
+    /*
+    * Forgets everything, for new GL context, which starts with everything unbound.
+    * */
+    public static void reset() {
+        program = 0;
+        vertexArray = 0;
+        arrayBuffer = 0;
+        activeUnit = 0;
+        Arrays.fill(textures2D, 0);
+        Arrays.fill(textureArrays, 0);
+        blend = false;
+        blendSrc = GL_ONE;
+        blendDst = GL_ZERO;
+    }
+
+    public static void resetCounters() {
+        issuedCalls = 0;
+        elidedCalls = 0;
+        textureBinds = 0;
+    }
+
+    public static int getIssuedCalls() {
+        return issuedCalls;
+    }
+
+    public static int getElidedCalls() {
+        return elidedCalls;
+    }
+
+    public static int getTextureBinds() {
+        return textureBinds;
+    }
+}
@@ -0,0 +1,25 @@
+package renderer;
+
+/*
+* Holds graphics device used by the whole renderer. OpenGL by default,
+* tests and benchmarks without GPU set HeadlessDevice before creating any scene, shader or texture.
+* */
+public class Graphics {
+    private static GraphicsDevice device = new OpenGLDevice();
+
+    private Graphics() {
+    }
+
+    public static GraphicsDevice device() {
+        return device;
+    }
+
+    /*
+    * Objects created with previous device keep ids from it, so switch only before anything is created.
+    * Also forgets state cached in GLState, which belonged to previous device.
+    * */
+    public static void setDevice(GraphicsDevice device) {
+        Graphics.device = device;
+        GLState.reset();
+    }
+}
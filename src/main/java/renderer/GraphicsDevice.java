@@ -0,0 +1,93 @@
+package renderer;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/*
+* All graphics calls of the renderer go through this, instead of static LWJGL functions.
+* Methods are named after the GL functions they stand for (without 'gl'), and take the same GL constants,
+* so OpenGLDevice just forwards them. HeadlessDevice records them in memory, without GPU or display.
+* Current device is set with Graphics.setDevice(), before any renderer object is created.
+* */
+public interface GraphicsDevice {
+    // ---- capabilities ----
+    boolean supportsFences(); // GL 3.2 sync objects
+    boolean supportsBufferStorage(); // GL 4.4 or ARB_buffer_storage, persistent mapping
+    int getInteger(int pname);
+
+    // ---- state ----
+    void enable(int cap);
+    void disable(int cap);
+    void blendFunc(int src, int dst);
+
+    // ---- buffers ----
+    int genBuffers();
+    void deleteBuffers(int buffer);
+    void bindBuffer(int target, int buffer);
+    void bindBufferBase(int target, int index, int buffer);
+    void bufferData(int target, long size, int usage);
+    void bufferData(int target, int[] data, int usage);
+    void bufferData(int target, float[] data, int usage);
+    void bufferSubData(int target, long offset, ByteBuffer data);
+    void bufferSubData(int target, long offset, IntBuffer data);
+    void bufferSubData(int target, long offset, FloatBuffer data);
+    void bufferSubData(int target, long offset, int[] data);
+    void bufferStorage(int target, long size, int flags);
+    ByteBuffer mapBufferRange(int target, long offset, long length, int access, ByteBuffer oldBuffer);
+    boolean unmapBuffer(int target);
+
+    // ---- sync ----
+    long fenceSync(int condition, int flags);
+    int clientWaitSync(long sync, int flags, long timeout);
+    void deleteSync(long sync);
+
+    // ---- vertex arrays ----
+    int genVertexArrays();
+    void deleteVertexArrays(int array);
+    void bindVertexArray(int array);
+    void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer);
+    void vertexAttribIPointer(int index, int size, int type, int stride, long pointer);
+    void enableVertexAttribArray(int index);
+    void vertexAttribDivisor(int index, int divisor);
+
+    // ---- drawing ----
+    void drawElementsBaseVertex(int mode, int count, int type, long indices, int baseVertex);
+    void drawElementsInstanced(int mode, int count, int type, long indices, int primcount);
+
+    // ---- textures ----
+    int genTextures();
+    void activeTexture(int texture);
+    void bindTexture(int target, int texture);
+    void texParameteri(int target, int pname, int param);
+    void texImage2D(int target, int level, int internalFormat, int width, int height, int border, int format, int type, ByteBuffer pixels);
+    void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int border, int format, int type, ByteBuffer pixels);
+    void texSubImage3D(int target, int level, int xoffset, int yoffset, int zoffset, int width, int height, int depth, int format, int type, ByteBuffer pixels);
+
+    // ---- shaders ----
+    int createShader(int type);
+    void shaderSource(int shader, CharSequence source);
+    void compileShader(int shader);
+    int getShaderi(int shader, int pname);
+    String getShaderInfoLog(int shader, int maxLength);
+    int createProgram();
+    void attachShader(int program, int shader);
+    void linkProgram(int program);
+    int getProgrami(int program, int pname);
+    String getProgramInfoLog(int program, int maxLength);
+    String getActiveUniform(int program, int index, IntBuffer size, IntBuffer type);
+    int getUniformLocation(int program, CharSequence name);
+    int getUniformBlockIndex(int program, CharSequence name);
+    void uniformBlockBinding(int program, int blockIndex, int binding);
+    void useProgram(int program);
+
+    // ---- uniforms ----
+    void uniform1i(int location, int value);
+    void uniform1iv(int location, int[] values);
+    void uniform1f(int location, float x);
+    void uniform2f(int location, float x, float y);
+    void uniform3f(int location, float x, float y, float z);
+    void uniform4f(int location, float x, float y, float z, float w);
+    void uniformMatrix3fv(int location, boolean transpose, FloatBuffer value);
+    void uniformMatrix4fv(int location, boolean transpose, FloatBuffer value);
+}
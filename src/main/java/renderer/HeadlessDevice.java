@@ -0,0 +1,417 @@
+package renderer;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.GL_INVALID_INDEX;
+import static org.lwjgl.opengl.GL32.GL_ALREADY_SIGNALED;
+
+/*
+* Graphics device without GPU or display, for tests, benchmarks and build agents.
+* Nothing is drawn, calls only hand out ids and are counted: draw calls, uploaded bytes, binds.
+* Shaders always compile and have no active uniforms, fences are signaled right away.
+* Buffers are backed by memory only when mapped, so RING streaming works the same as on GPU.
+* */
+public class HeadlessDevice implements GraphicsDevice {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private final int MAX_TEXTURE_SIZE = 16384;
+    private final int MAX_TEXTURE_IMAGE_UNITS = 16;
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private int nextID = 1; // ids of all kinds of objects, 0 means none in GL
+    private long nextSync = 1;
+    private Map<Integer, Integer> boundBuffers = new HashMap<>(); // target -> buffer
+    private Map<Integer, Long> bufferSizes = new HashMap<>();
+    private Map<Integer, ByteBuffer> mappedMemory = new HashMap<>(); // buffer -> memory, created on first map
+
+    private int drawCalls;
+    private long elementsDrawn; // indices processed by draw calls, instanced draws count every instance
+    private long bytesUploaded; // buffer data and subdata, and mapped ranges
+    private int uploadCalls;
+    private int bindCalls; // buffers, vertex arrays, textures and programs
+    private int uniformCalls;
+    private int buffersAlive;
+    // -----------------------------------------------------------------------
+
+    @Override
+    public boolean supportsFences() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsBufferStorage() {
+        return true;
+    }
+
+    @Override
+    public int getInteger(int pname) {
+        switch (pname) {
+            case GL_MAX_TEXTURE_SIZE:
+                return MAX_TEXTURE_SIZE;
+            case GL_MAX_TEXTURE_IMAGE_UNITS:
+                return MAX_TEXTURE_IMAGE_UNITS;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public void enable(int cap) {
+    }
+
+    @Override
+    public void disable(int cap) {
+    }
+
+    @Override
+    public void blendFunc(int src, int dst) {
+    }
+
+    @Override
+    public int genBuffers() {
+        buffersAlive++;
+        return nextID++;
+    }
+
+    @Override
+    public void deleteBuffers(int buffer) {
+        buffersAlive--;
+        bufferSizes.remove(buffer);
+        mappedMemory.remove(buffer);
+        boundBuffers.values().removeIf(bound -> bound == buffer);
+    }
+
+    @Override
+    public void bindBuffer(int target, int buffer) {
+        boundBuffers.put(target, buffer);
+        bindCalls++;
+    }
+
+    @Override
+    public void bindBufferBase(int target, int index, int buffer) {
+        boundBuffers.put(target, buffer);
+        bindCalls++;
+    }
+
+    @Override
+    public void bufferData(int target, long size, int usage) {
+        bufferSizes.put(bound(target), size);
+        uploadCalls++;
+    }
+
+    @Override
+    public void bufferData(int target, int[] data, int usage) {
+        bufferSizes.put(bound(target), (long)data.length * Integer.BYTES);
+        upload(data.length * Integer.BYTES);
+    }
+
+    @Override
+    public void bufferData(int target, float[] data, int usage) {
+        bufferSizes.put(bound(target), (long)data.length * Float.BYTES);
+        upload(data.length * Float.BYTES);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, ByteBuffer data) {
+        upload(data.remaining());
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, IntBuffer data) {
+        upload((long)data.remaining() * Integer.BYTES);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, FloatBuffer data) {
+        upload((long)data.remaining() * Float.BYTES);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, int[] data) {
+        upload((long)data.length * Integer.BYTES);
+    }
+
+    @Override
+    public void bufferStorage(int target, long size, int flags) {
+        bufferSizes.put(bound(target), size);
+        uploadCalls++;
+    }
+
+    /*
+    * Whatever is written into mapped range counts as uploaded.
+    * */
+    @Override
+    public ByteBuffer mapBufferRange(int target, long offset, long length, int access, ByteBuffer oldBuffer) {
+        int buffer = bound(target);
+        ByteBuffer memory = mappedMemory.get(buffer);
+        long size = Math.max(bufferSizes.getOrDefault(buffer, 0L), offset + length);
+        if (memory == null || memory.capacity() < size) {
+            memory = ByteBuffer.allocateDirect((int)size);
+            mappedMemory.put(buffer, memory);
+        }
+        upload(length);
+        return memory.slice((int)offset, (int)length);
+    }
+
+    @Override
+    public boolean unmapBuffer(int target) {
+        return true;
+    }
+
+    @Override
+    public long fenceSync(int condition, int flags) {
+        return nextSync++;
+    }
+
+    @Override
+    public int clientWaitSync(long sync, int flags, long timeout) {
+        return GL_ALREADY_SIGNALED;
+    }
+
+    @Override
+    public void deleteSync(long sync) {
+    }
+
+    @Override
+    public int genVertexArrays() {
+        return nextID++;
+    }
+
+    @Override
+    public void deleteVertexArrays(int array) {
+    }
+
+    @Override
+    public void bindVertexArray(int array) {
+        bindCalls++;
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long pointer) {
+    }
+
+    @Override
+    public void vertexAttribIPointer(int index, int size, int type, int stride, long pointer) {
+    }
+
+    @Override
+    public void enableVertexAttribArray(int index) {
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+    }
+
+    @Override
+    public void drawElementsBaseVertex(int mode, int count, int type, long indices, int baseVertex) {
+        drawCalls++;
+        elementsDrawn += count;
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long indices, int primcount) {
+        drawCalls++;
+        elementsDrawn += (long)count * primcount;
+    }
+
+    @Override
+    public int genTextures() {
+        return nextID++;
+    }
+
+    @Override
+    public void activeTexture(int texture) {
+    }
+
+    @Override
+    public void bindTexture(int target, int texture) {
+        bindCalls++;
+    }
+
+    @Override
+    public void texParameteri(int target, int pname, int param) {
+    }
+
+    @Override
+    public void texImage2D(int target, int level, int internalFormat, int width, int height, int border, int format, int type, ByteBuffer pixels) {
+        if (pixels != null) {
+            upload(pixels.remaining());
+        }
+    }
+
+    @Override
+    public void texImage3D(int target, int level, int internalFormat, int width, int height, int depth, int border, int format, int type, ByteBuffer pixels) {
+        if (pixels != null) {
+            upload(pixels.remaining());
+        }
+    }
+
+    @Override
+    public void texSubImage3D(int target, int level, int xoffset, int yoffset, int zoffset, int width, int height, int depth, int format, int type, ByteBuffer pixels) {
+        upload(pixels.remaining());
+    }
+
+    @Override
+    public int createShader(int type) {
+        return nextID++;
+    }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+    }
+
+    @Override
+    public void compileShader(int shader) {
+    }
+
+    @Override
+    public int getShaderi(int shader, int pname) {
+        return pname == GL_COMPILE_STATUS ? GL_TRUE : 0;
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader, int maxLength) {
+        return "";
+    }
+
+    @Override
+    public int createProgram() {
+        return nextID++;
+    }
+
+    @Override
+    public void attachShader(int program, int shader) {
+    }
+
+    @Override
+    public void linkProgram(int program) {
+    }
+
+    @Override
+    public int getProgrami(int program, int pname) {
+        return pname == GL_LINK_STATUS ? GL_TRUE : 0;
+    }
+
+    @Override
+    public String getProgramInfoLog(int program, int maxLength) {
+        return "";
+    }
+
+    @Override
+    public String getActiveUniform(int program, int index, IntBuffer size, IntBuffer type) {
+        return "";
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        return -1;
+    }
+
+    @Override
+    public int getUniformBlockIndex(int program, CharSequence name) {
+        return GL_INVALID_INDEX;
+    }
+
+    @Override
+    public void uniformBlockBinding(int program, int blockIndex, int binding) {
+    }
+
+    @Override
+    public void useProgram(int program) {
+        bindCalls++;
+    }
+
+    @Override
+    public void uniform1i(int location, int value) {
+        uniformCalls++;
+    }
+
+    @Override
+    public void uniform1iv(int location, int[] values) {
+        uniformCalls++;
+    }
+
+    @Override
+    public void uniform1f(int location, float x) {
+        uniformCalls++;
+    }
+
+    @Override
+    public void uniform2f(int location, float x, float y) {
+        uniformCalls++;
+    }
+
+    @Override
+    public void uniform3f(int location, float x, float y, float z) {
+        uniformCalls++;
+    }
+
+    @Override
+    public void uniform4f(int location, float x, float y, float z, float w) {
+        uniformCalls++;
+    }
+
+    @Override
+    public void uniformMatrix3fv(int location, boolean transpose, FloatBuffer value) {
+        uniformCalls++;
+    }
+
+    @Override
+    public void uniformMatrix4fv(int location, boolean transpose, FloatBuffer value) {
+        uniformCalls++;
+    }
+
+    private int bound(int target) {
+        return boundBuffers.getOrDefault(target, 0);
+    }
+
+    private void upload(long bytes) {
+        bytesUploaded += bytes;
+        uploadCalls++;
+    }
+
+    /*
+    * Counters start from zero again, for example at start of every measured frame.
+    * */
+    public void resetCounters() {
+        drawCalls = 0;
+        elementsDrawn = 0;
+        bytesUploaded = 0;
+        uploadCalls = 0;
+        bindCalls = 0;
+        uniformCalls = 0;
+    }
+
+    public int getDrawCalls() {
+        return this.drawCalls;
+    }
+
+    public long getElementsDrawn() {
+        return this.elementsDrawn;
+    }
+
+    public long getBytesUploaded() {
+        return this.bytesUploaded;
+    }
+
+    public int getUploadCalls() {
+        return this.uploadCalls;
+    }
+
+    public int getBindCalls() {
+        return this.bindCalls;
+    }
+
+    public int getUniformCalls() {
+        return this.uniformCalls;
+    }
+
+    public int getBuffersAlive() {
+        return this.buffersAlive;
+    }
+}
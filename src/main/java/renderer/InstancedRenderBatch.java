@@ -0,0 +1,137 @@
+package renderer;
+
+import components.SpriteRenderer;
+import domo.Transform;
+import org.joml.Vector2f;
+import org.joml.Vector4f;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static renderer.Graphics.device;
+
+/*
+* Batch that draws all its sprites with one shared unit quad and glDrawElementsInstanced.
+* Instead of 4 vertices per sprite, only one record per sprite is uploaded, quad corners are built in vertex shader.
+* */
+public class InstancedRenderBatch extends RenderBatch {
+
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    /*
+    * Instance structure is described by VertexLayout.SPRITE_INSTANCE.
+    * Attributes in order:
+    *
+    * Pos           Scale           uv rect (min, max)          Color           tex id
+    * */
+    private final int POS = 0;
+    private final int SCALE = 1;
+    private final int UV_RECT = 2;
+    private final int COLOR = 3;
+    private final int TEX_ID = 4;
+
+    /*
+    * Corners of unit quad, in the same order as vertices in RenderBatch and texture coords in Sprite.
+    * */
+    private static final float[] QUAD_CORNERS = {
+            1, 1,
+            1, 0,
+            0, 0,
+            0, 1
+    };
+    private static final int[] QUAD_INDICES = {3, 2, 0, 0, 2, 1};
+    // -----------------------------------------------------------------------
+
+    private int quadID;
+    private long attributesOffset; // byte offset instance attribute pointers currently point to
+
+    public InstancedRenderBatch(int maxBatchSize, int zIndex, StreamingMode streamingMode) {
+        this(maxBatchSize, zIndex, streamingMode, null);
+    }
+
+    public InstancedRenderBatch(int maxBatchSize, int zIndex, StreamingMode streamingMode, TextureArray textureArray) {
+        super(maxBatchSize, zIndex, streamingMode, "assets/shaders/instanced.glsl", VertexLayout.SPRITE_INSTANCE, 1, textureArray);
+    }
+
+    @Override
+    protected void setupVertexAttributes() {
+        // shared quad, location 0
+        quadID = device().genBuffers();
+        GLState.bindArrayBuffer(quadID);
+        device().bufferData(GL_ARRAY_BUFFER, QUAD_CORNERS, GL_STATIC_DRAW);
+        device().vertexAttribPointer(0, 2, GL_FLOAT, false, 2 * Float.BYTES, 0);
+        device().enableVertexAttribArray(0);
+
+        eboID = device().genBuffers();
+        device().bindBuffer(GL_ELEMENT_ARRAY_BUFFER, eboID);
+        device().bufferData(GL_ELEMENT_ARRAY_BUFFER, QUAD_INDICES, GL_STATIC_DRAW);
+
+        // per instance data, locations 1-5, advancing once per instance
+        vertexStream.bind();
+        pointInstanceAttributes(0);
+        layout.enableAttributes(1);
+    }
+
+    @Override
+    public void destroy() {
+        super.destroy();
+        device().deleteBuffers(quadID);
+        GLState.bufferDeleted(quadID);
+    }
+
+    private void pointInstanceAttributes(long offset) {
+        layout.pointAttributes(offset);
+        attributesOffset = offset;
+    }
+
+    /*
+    * Instances are drawn as one continuous range, so culling cannot pick single sprites.
+    * Batch is still skipped when none of its sprites is visible. Hidden sprites are after the range, never drawn.
+    * */
+    @Override
+    protected boolean usesDrawList() {
+        return false;
+    }
+
+    @Override
+    protected void draw(int spriteCount) {
+        // GL 4.1 has no base instance, so ring buffer segment is selected by moving attribute pointers.
+        long offset = vertexStream.baseOffsetBytes();
+        if (offset != attributesOffset) {
+            vertexStream.bind();
+            pointInstanceAttributes(offset);
+        }
+        device().drawElementsInstanced(GL_TRIANGLES, 6, GL_UNSIGNED_INT, 0, spriteCount);
+    }
+
+    @Override
+    protected void loadVertexProperties(int index) {
+        SpriteRenderer sprite = this.sprites[index];
+        int offset = index * layout.getStride();
+
+        Transform transform = sprite.renderTransform();
+        Vector4f color = sprite.renderColor();
+        Vector2f[] texCoords = sprite.renderTexCoords();
+
+        VertexAttribute pos = layout.get(POS);
+        pos.put(vertexData, offset, 0, transform.getX());
+        pos.put(vertexData, offset, 1, transform.getY());
+
+        VertexAttribute scale = layout.get(SCALE);
+        scale.put(vertexData, offset, 0, transform.getScaleX());
+        scale.put(vertexData, offset, 1, transform.getScaleY());
+
+        // left-bottom and right-top corners of sprite in texture
+        VertexAttribute uvRect = layout.get(UV_RECT);
+        uvRect.put(vertexData, offset, 0, texCoords[2].x);
+        uvRect.put(vertexData, offset, 1, texCoords[2].y);
+        uvRect.put(vertexData, offset, 2, texCoords[0].x);
+        uvRect.put(vertexData, offset, 3, texCoords[0].y);
+
+        VertexAttribute col = layout.get(COLOR);
+        col.put(vertexData, offset, 0, color.x);
+        col.put(vertexData, offset, 1, color.y);
+        col.put(vertexData, offset, 2, color.z);
+        col.put(vertexData, offset, 3, color.w);
+
+        layout.get(TEX_ID).put(vertexData, offset, 0, textureSlot(sprite));
+    }
+}
@@ -1,70 +1,146 @@
 package renderer;
 
 import components.SpriteRenderer;
-import domo.Window;
+import domo.Transform;
 import org.joml.Vector2f;
 import org.joml.Vector4f;
+import org.lwjgl.BufferUtils;
+import jdk.jfr.EventType;
+import profiling.BatchRebuildEvent;
 import util.AssetPool;
 
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.lwjgl.opengl.GL15.*;
 import static org.lwjgl.opengl.GL20.*;
-import static org.lwjgl.opengl.GL30.glBindVertexArray;
-import static org.lwjgl.opengl.GL30.glGenVertexArrays;
+import static renderer.Graphics.device;
 
 public class RenderBatch implements Comparable<RenderBatch>{
 
     // ------------------------ STATIC PROPERTIES ----------------------------
     /*
-    * Vertex structure layout that will never change:
+    * Vertex structure is described by VertexLayout, SPRITE_FLOAT or SPRITE_PACKED.
+    * Attributes in order:
     *
-    * Pos                   Color                           tex coords          tex id
-    * float, float,         float, float, float, float      float, float        float
+    * Pos           Color           tex coords          tex id
     * */
-    private final int POS_SIZE = 2;
-    private final int COLOR_SIZE = 4;
-    private final int TEX_COORDS_SIZE = 2;
-    private final int TEX_ID_SIZE = 1;
-
-    // offsets are position of parameter that we want to take, by calc from the beggining of array
-    private final int POS_OFFSET = 0;
-    private final int COLOR_OFFSET = POS_OFFSET + POS_SIZE * Float.BYTES;
-    private final int TEX_COORDS_OFFSET = COLOR_OFFSET + COLOR_SIZE * Float.BYTES;
-    private final int TEX_ID_OFFSET = TEX_COORDS_OFFSET + TEX_COORDS_SIZE * Float.BYTES;
-
-    private final int VERTEX_SIZE = 9; // we have 9 floats inside of one vertex. based on floats up.
-    private final int VERTEX_SIZE_BYTES = VERTEX_SIZE * Float.BYTES;
+    private final int POS = 0;
+    private final int COLOR = 1;
+    private final int TEX_COORDS = 2;
+    private final int TEX_ID = 3;
+
+    /*
+    * Dirty sprites found in render() are collected into a few coalesced ranges, so only those parts of vbo are uploaded.
+    * Dirty sprites closer than MERGE_GAP are joined into one range, one bigger upload is cheaper than many small ones.
+    * When ranges cover more than FULL_UPLOAD_THRESHOLD of the batch, whole batch is uploaded in one call instead.
+    * */
+    private final int MAX_DIRTY_RANGES = 8;
+    private final int DIRTY_RANGE_MERGE_GAP = 4;
+    private final float FULL_UPLOAD_THRESHOLD = 0.5f;
+
+    // asked before every prepare(), so no event is allocated while no recording wants batch rebuilds
+    private static final EventType BATCH_REBUILD = EventType.getEventType(BatchRebuildEvent.class);
     // -----------------------------------------------------------------------
 
     // ------------------------ DYNAMIC PROPERTIES ----------------------------
-    private SpriteRenderer[] sprites;
-    private int numSprites;
+    protected SpriteRenderer[] sprites;
+    protected int numSprites;
+    protected int numShown; // sprites [0, numShown) are drawn, hidden ones are kept after them, see setVisible()
+    private Map<SpriteRenderer, Integer> spriteIndexes; // where sprite is in sprites array
     private boolean hasRoom;
-    private float[] vertices;
+    protected ByteBuffer vertexData; // vertices of all sprites, in the same form as they are in vbo
+    protected VertexLayout layout;
+    protected int bytesPerSprite; // bytes of vertexData that belong to one sprite
+    private int[] dirtyRangeStart;
+    private int[] dirtyRangeEnd;
+    private int numDirtyRanges;
+    private int bytesUploaded; // bytes sent to GPU during last render()
+    private int[] preparedSprites; // sprites reloaded by prepare(), their grid cells are updated in submit()
+    private int numPrepared;
     private int[] texSlots = {0, 1, 2, 3, 4, 5, 6, 7};
-    private List<Texture> textures;
+    protected List<Texture> textures;
+    protected TextureArray textureArray; // when set, all textures of batch are layers of this array
+    private Map<Texture, Integer> textureUsers; // how many sprites use each texture of textures list
+    private SpatialGrid spatialGrid; // renderer's grid, updated with sprites that moved
+    private Runnable prepareTask; // runs prepare() on worker thread, given by renderer, see Renderer.prepareBatches()
+    private boolean isStatic; // sprites are looked at only after they are added, removed or invalidated
+    private boolean staticDirty;
+
+    // culling: sprites which are on screen this frame, their quads are the only ones in element buffer
+    private int[] visibleSprites;
+    private int numVisible;
+    private int[] visibleFrame; // frame in which sprite at index was last marked visible, to skip duplicates
+    private int[] uploadedVisible; // visible sprites currently in element buffer
+    private int numUploadedVisible;
+    private boolean elementsCulled; // element buffer holds only visible sprites, not all of them
+    private IntBuffer elementUpload;
+    private int[] quadElements = new int[6];
     private int vaoID;
-    private int vboID;
-    private int maxBatchSize;
+    protected int eboID;
+    protected VertexStream vertexStream;
+    protected int maxBatchSize;
     private Shader shader;
     private int zIndex;
     // -----------------------------------------------------------------------
 
     /* Takes param of how many will batch contain...*/
     public RenderBatch(int maxBatchSize, int zIndex) {
+        this(maxBatchSize, zIndex, StreamingMode.SUB_DATA);
+    }
+
+    public RenderBatch(int maxBatchSize, int zIndex, StreamingMode streamingMode) {
+        this(maxBatchSize, zIndex, streamingMode, VertexLayout.SPRITE_FLOAT);
+    }
+
+    public RenderBatch(int maxBatchSize, int zIndex, StreamingMode streamingMode, VertexLayout layout) {
+        this(maxBatchSize, zIndex, streamingMode, layout, null);
+    }
+
+    /*
+    * Batch with texture array takes only sprites whose textures are layers of that array (or have no texture),
+    * but there is no limit on how many different layers it draws.
+    * */
+    public RenderBatch(int maxBatchSize, int zIndex, StreamingMode streamingMode, VertexLayout layout, TextureArray textureArray) {
+        // 4 vertices quads:
+        this(maxBatchSize, zIndex, streamingMode, "assets/shaders/default.glsl", layout, 4, textureArray);
+    }
+
+    /*
+    * Used by batches that lay out sprite data differently, see InstancedRenderBatch.
+    * verticesPerSprite is number of layout elements in vbo that belong to one sprite, 4 vertices or 1 instance.
+    * */
+    protected RenderBatch(int maxBatchSize, int zIndex, StreamingMode streamingMode, String shaderPath,
+                          VertexLayout layout, int verticesPerSprite, TextureArray textureArray) {
         this.zIndex = zIndex;
-        shader = AssetPool.getShader("assets/shaders/default.glsl");
+        this.textureArray = textureArray;
+        shader = AssetPool.getShader(shaderPath, layout.getShaderDefine(), textureArray != null ? "TEXTURE_ARRAY" : null);
         this.sprites = new SpriteRenderer[maxBatchSize];
         this.maxBatchSize = maxBatchSize;
 
-        // 4 vertices quads:
-        vertices = new float[maxBatchSize * 4 * VERTEX_SIZE];
+        this.layout = layout;
+        this.bytesPerSprite = verticesPerSprite * layout.getStride();
+        vertexData = BufferUtils.createByteBuffer(maxBatchSize * bytesPerSprite);
+        vertexStream = new VertexStream(streamingMode, vertexData.capacity(), layout.getStride());
+        isStatic = streamingMode == StreamingMode.STATIC;
+        dirtyRangeStart = new int[MAX_DIRTY_RANGES];
+        dirtyRangeEnd = new int[MAX_DIRTY_RANGES];
+        preparedSprites = new int[maxBatchSize];
 
         this.numSprites = 0;
         this.hasRoom = true;
         this.textures = new ArrayList<>();
+        this.spriteIndexes = new IdentityHashMap<>();
+        this.textureUsers = new HashMap<>();
+        this.visibleSprites = new int[maxBatchSize];
+        this.visibleFrame = new int[maxBatchSize];
+        this.uploadedVisible = new int[maxBatchSize];
     }
 
     /*
@@ -72,134 +148,372 @@ public class RenderBatch implements Comparable<RenderBatch>{
     * */
     public void start() {
         // Generate and bind a Vertex Array Object
-        vaoID = glGenVertexArrays();
-        glBindVertexArray(vaoID);
+        vaoID = device().genVertexArrays();
+        GLState.bindVertexArray(vaoID);
 
-        // Allocate space for vertices:
-        vboID = glGenBuffers();
-        glBindBuffer(GL_ARRAY_BUFFER, vboID);
-        glBufferData(GL_ARRAY_BUFFER, vertices.length * Float.BYTES, GL_DYNAMIC_DRAW);
+        // Allocate space for vertices, stream leaves its vbo bound for attribute pointers:
+        vertexStream.start();
 
+        setupVertexAttributes();
+    }
+
+    /*
+    * Creates element buffer and describes vertex layout to currently bound vao.
+    * */
+    protected void setupVertexAttributes() {
         // Create and upload indices buffer:, to reduce vertex duplication
-        int eboID = glGenBuffers();
+        eboID = device().genBuffers();
         int[] indices = generateIndices();
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, eboID);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
-
-        // Enable the buffer attribute pointers, for Position and Color
-        glVertexAttribPointer(0, POS_SIZE, GL_FLOAT, false, VERTEX_SIZE_BYTES, POS_OFFSET);
-        glEnableVertexAttribArray(0);
+        device().bindBuffer(GL_ELEMENT_ARRAY_BUFFER, eboID);
+        device().bufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_DYNAMIC_DRAW); // rewritten with visible sprites when culling
 
-        glVertexAttribPointer(1, COLOR_SIZE, GL_FLOAT, false, VERTEX_SIZE_BYTES, COLOR_OFFSET);
-        glEnableVertexAttribArray(1);
-
-        glVertexAttribPointer(2, TEX_COORDS_SIZE, GL_FLOAT, false, VERTEX_SIZE_BYTES, TEX_COORDS_OFFSET);
-        glEnableVertexAttribArray(2);
-
-        glVertexAttribPointer(3, TEX_ID_SIZE, GL_FLOAT, false, VERTEX_SIZE_BYTES, TEX_ID_OFFSET);
-        glEnableVertexAttribArray(3);
+        // Enable the buffer attribute pointers, for Position, Color, tex coords and tex id
+        layout.pointAttributes(0);
+        layout.enableAttributes(0);
     }
 
     public void addSprite(SpriteRenderer spr) {
         // Get index and add renderObject:
         int index = this.numSprites;
-        // we want ot put it at the end of current array.
+        // we want ot put it at the end of current array, shown sprite goes right after other shown ones.
+        if (spr.isRenderVisible()) {
+            if (numShown < numSprites) {
+                place(sprites[numShown], numSprites); // first hidden sprite makes room
+            }
+            index = numShown++;
+        }
         this.sprites[index] = spr;
+        this.spriteIndexes.put(spr, index);
         this.numSprites++;
 
         // before we load this sprite, we want to add texture to the local list of textures ( batches containing all images).
-        if (spr.getTexture() != null) {
-            if (!textures.contains(spr.getTexture())) {
-                textures.add(spr.getTexture());
+        // texture array batch has just one texture, layer is taken from each sprite's texture.
+        if (spr.renderTexture() != null && textureArray == null) {
+            if (!textures.contains(spr.renderTexture())) {
+                textures.add(spr.renderTexture());
             }
+            textureUsers.merge(spr.renderTexture(), 1, Integer::sum);
         }
 
-        // Add properties to local verticies array
+        // Add properties to local verticies array, and make sure they get uploaded
         loadVertexProperties(index);
+        spr.markDirty();
+        staticDirty = true;
 
         if(numSprites >= this.maxBatchSize) {
             this.hasRoom = false;
         }
     }
 
-    public void render() {
-        boolean rebufferData = false;
+    /*
+    * Removes sprite by moving last sprite into its place, so sprites stay packed at the beggining of the batch.
+    * Only the moved sprite has to be uploaded again, it is marked dirty and reloaded on next render().
+    * Returns false if sprite is not in this batch.
+    * */
+    public boolean removeSprite(SpriteRenderer spr) {
+        Integer index = spriteIndexes.remove(spr);
+        if (index == null) {
+            return false;
+        }
+
+        int last = numSprites - 1;
+        if (index < numShown) {
+            // last shown sprite fills the hole, last hidden one takes its place
+            int lastShown = numShown - 1;
+            if (index != lastShown) {
+                place(sprites[lastShown], index);
+            }
+            if (lastShown != last) {
+                place(sprites[last], lastShown);
+            }
+            numShown--;
+        } else if (index != last) {
+            place(sprites[last], index);
+        }
+        sprites[last] = null;
+        numSprites--;
+        hasRoom = true;
+
+        if (spr.renderTexture() != null && textureArray == null) {
+            int users = textureUsers.merge(spr.renderTexture(), -1, Integer::sum);
+            if (users <= 0) {
+                textureUsers.remove(spr.renderTexture());
+                int slot = textures.indexOf(spr.renderTexture());
+                textures.remove(slot);
+                // textures after removed one moved one slot down, sprites using them need new tex id
+                if (slot < textures.size()) {
+                    for (int i=0; i< numSprites; i++) {
+                        sprites[i].markDirty();
+                    }
+                    staticDirty = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+    * Shows or hides sprite, hidden sprite keeps its slot but is not drawn and not culled.
+    * Shown sprites are kept packed at the beggining of the batch, so every draw path takes just the first numShown of them.
+    * */
+    public void setVisible(SpriteRenderer spr, boolean visible) {
+        spr.setRenderVisible(visible);
+        Integer index = spriteIndexes.get(spr);
+        if (index == null || (index < numShown) == visible) {
+            return;
+        }
+        // swap with the sprite on the border of shown and hidden ones, then move the border over it
+        int border = visible ? numShown : numShown - 1;
+        if (index != border) {
+            SpriteRenderer other = sprites[border];
+            place(spr, border);
+            place(other, index);
+        }
+        numShown += visible ? 1 : -1;
+    }
+
+    /*
+    * Puts sprite into given slot, its vertices are loaded there on next prepare().
+    * */
+    private void place(SpriteRenderer spr, int index) {
+        sprites[index] = spr;
+        spriteIndexes.put(spr, index);
+        spr.markDirty();
+        staticDirty = true;
+    }
+
+    public int getNumShown() {
+        return this.numShown;
+    }
+
+    /*
+    * Whether all sprites of other batch would fit into this one, with their textures.
+    * */
+    public boolean canTakeAll(RenderBatch other) {
+        if (other.textureArray != textureArray || numSprites + other.numSprites > maxBatchSize) {
+            return false;
+        }
+        int newTextures = 0;
+        for (Texture tex : other.textures) {
+            if (!textures.contains(tex)) {
+                newTextures++;
+            }
+        }
+        return textures.size() + newTextures <= 8;
+    }
+
+    /*
+    * Frees GPU buffers of this batch, it cannot be rendered anymore.
+    * */
+    public void destroy() {
+        vertexStream.destroy();
+        device().deleteBuffers(eboID);
+        device().deleteVertexArrays(vaoID);
+        GLState.vertexArrayDeleted(vaoID);
+    }
+
+    /*
+    * Reloads vertices of dirty sprites and uploads them to GPU.
+    * */
+    public void rebuffer() {
+        prepare();
+        submit();
+    }
+
+    /*
+    * Reloads vertices of dirty sprites into vertex array, no GL calls are made here.
+    * Touches only this batch and its own sprites, so different batches can be prepared on different threads.
+    * Batch must not be changed (sprites added or removed) while it is being prepared.
+    * */
+    public void prepare() {
+        bytesUploaded = 0;
+        numDirtyRanges = 0;
+        numPrepared = 0;
+        if (isStatic && !staticDirty) {
+            return;
+        }
+        staticDirty = false;
+        BatchRebuildEvent event = null;
+        if (BATCH_REBUILD.isEnabled()) {
+            event = new BatchRebuildEvent();
+            event.begin();
+        }
         for (int i=0; i<numSprites; i++) {
             SpriteRenderer spr = sprites[i];
             if (spr.isDirty()) {
                 loadVertexProperties(i);
                 spr.setClean();
-                rebufferData = true;
+                markDirty(i);
+                preparedSprites[numPrepared++] = i;
             }
         }
+        if (event != null && numPrepared > 0 && event.shouldCommit()) {
+            event.zIndex = zIndex;
+            event.sprites = numSprites;
+            event.spritesRebuilt = numPrepared;
+            event.commit();
+        }
+    }
 
+    /*
+    * Second half of rebuffer(), on GL thread: moves prepared sprites to their new grid cells
+    * and uploads only parts of vertices that changed since last frame.
+    * */
+    public void submit() {
+        if (spatialGrid != null) {
+            for (int i=0; i< numPrepared; i++) {
+                spatialGrid.update(sprites[preparedSprites[i]]);
+            }
+        }
+        numPrepared = 0;
 
-        /*
-        * doing that every time rebuffer data is set to true,
-        * */
-        if(rebufferData) {
-            glBindBuffer(GL_ARRAY_BUFFER, vboID);
-            glBufferSubData(GL_ARRAY_BUFFER, 0, vertices);
+        if (numDirtyRanges > 0) {
+            uploadDirtyRanges();
+        }
+    }
+
+    /*
+    * Starts collecting visible sprites for given frame, see markVisible().
+    * */
+    public void beginCulling() {
+        numVisible = 0;
+    }
+
+    /*
+    * Adds sprite to this frame's draw list, sprites reported more than once are added once.
+    * */
+    public void markVisible(SpriteRenderer spr, int frame) {
+        Integer index = spriteIndexes.get(spr);
+        if (index == null || index >= numShown || visibleFrame[index] == frame) {
+            return;
+        }
+        visibleFrame[index] = frame;
+        visibleSprites[numVisible++] = index;
+    }
+
+    public int getNumVisible() {
+        return this.numVisible;
+    }
+
+    /*
+    * Draws the batch. When culled, only sprites marked visible since beginCulling() are drawn, hidden sprites never are.
+    * Returns number of sprites drawn, 0 when no draw call was made.
+    * */
+    public int render(boolean culled) {
+        if (numShown == 0 || (culled && numVisible == 0)) {
+            return 0;
         }
-        // use shader
+
+        // use shader, camera matrices come from Camera uniform block that Renderer updates once per frame
         shader.use();
-        shader.uploadMat4f("uProjection", Window.getScene().camera().getProjectionMatrix());
-        shader.uploadMat4f("uView", Window.getScene().camera().getViewMatrix());
 
         // binding textures:
-        for (int i=0; i< textures.size(); i++) {
-            glActiveTexture(GL_TEXTURE0 + i + 1);
-            textures.get(i).bind();
+        if (textureArray != null) {
+            GLState.activeTexture(1);
+            textureArray.bind();
+            shader.uploadTexture("uTextureArray", 1);
+        } else {
+            for (int i=0; i< textures.size(); i++) {
+                GLState.activeTexture(i + 1);
+                textures.get(i).bind();
+            }
+
+            shader.uploadIntArray("uTextures", texSlots);
         }
 
-        shader.uploadIntArray("uTextures", texSlots);
+        // attributes were enabled in start(), that is kept in vao
+        GLState.bindVertexArray(vaoID);
+
+        // element buffer belongs to vao, so it can be changed only after vao is bound
+        int spriteCount = numShown;
+        if (culled && usesDrawList()) {
+            uploadVisibleElements();
+            spriteCount = numVisible;
+        } else if (elementsCulled) {
+            device().bufferSubData(GL_ELEMENT_ARRAY_BUFFER, 0, generateIndices());
+            elementsCulled = false;
+        }
 
-        glBindVertexArray(vaoID);
-        glEnableVertexAttribArray(0);
-        glEnableVertexAttribArray(1);
+        draw(spriteCount);
+        vertexStream.endDraw();
 
-        // draw elements:
-        glDrawElements(GL_TRIANGLES, this.numSprites * 6, GL_UNSIGNED_INT, 0);
+        /*
+        * program, vao and textures stay bound, next batch with the same ones does not have to bind them again.
+        * GLState keeps track of them.
+        * */
+        return spriteCount;
+    }
 
-        // disable everything
-        glDisableVertexAttribArray(0);
-        glDisableVertexAttribArray(1);
-        glBindVertexArray(0);
+    public void render() {
+        rebuffer();
+        render(false);
+    }
+
+    /*
+    * Writes quads of visible sprites into element buffer, in the same order as they are in batch.
+    * Nothing is uploaded when the same sprites are visible as last frame.
+    * */
+    private void uploadVisibleElements() {
+        Arrays.sort(visibleSprites, 0, numVisible);
+        if (elementsCulled && Arrays.equals(visibleSprites, 0, numVisible, uploadedVisible, 0, numUploadedVisible)) {
+            return;
+        }
 
-        for (int i=0; i< textures.size(); i++) {
-            textures.get(i).unbind();
+        if (elementUpload == null) {
+            elementUpload = BufferUtils.createIntBuffer(6 * maxBatchSize);
+        }
+        elementUpload.clear();
+        for (int i=0; i< numVisible; i++) {
+            loadElementIndices(quadElements, 0, visibleSprites[i]);
+            elementUpload.put(quadElements);
         }
-        shader.detach();
+        elementUpload.flip();
+        device().bufferSubData(GL_ELEMENT_ARRAY_BUFFER, 0, elementUpload);
+
+        System.arraycopy(visibleSprites, 0, uploadedVisible, 0, numVisible);
+        numUploadedVisible = numVisible;
+        elementsCulled = true;
+    }
+
+    /*
+    * Whether draw() uses element buffer with one quad per sprite, which culling can rewrite.
+    * */
+    protected boolean usesDrawList() {
+        return true;
+    }
+
+    /*
+    * Issues draw call for first spriteCount quads of element buffer, vao is already bound.
+    * */
+    protected void draw(int spriteCount) {
+        device().drawElementsBaseVertex(GL_TRIANGLES, spriteCount * 6, GL_UNSIGNED_INT, 0, vertexStream.baseVertex());
     }
 
     /*
     * Create 4 vertices per quad
     * */
-    private void loadVertexProperties(int index) {
+    protected void loadVertexProperties(int index) {
         SpriteRenderer sprite = this.sprites[index];
 
         /*
-        * Finde the offset within array ( 4 vertices per sprite)
-        * float float________float float float float    , next one:
+        * Finde the offset within buffer ( 4 vertices per sprite)
+        * pos________color________tex coords_____tex id    , next one:
         * */
-        int offset = index * 4 * VERTEX_SIZE;
+        int stride = layout.getStride();
+        int offset = index * 4 * stride;
 
-        Vector4f color = sprite.getColor();
-        Vector2f[] texCoords = sprite.getTexCoords();
+        Transform transform = sprite.renderTransform();
+        Vector4f color = sprite.renderColor();
+        Vector2f[] texCoords = sprite.renderTexCoords();
 
-        int textureId = 0;
-        /*
-        * [0, texture, texture, texture, ... ] looping until we find texture that matches..
-        * 0 is special slot that just saves space so we can add textures + 1 in relation to this one
-        * */
-        if (sprite.getTexture() != null) {
-            for (int i=0; i< textures.size(); i++) {
-                if (textures.get(i) == sprite.getTexture()) {
-                    textureId = i + 1;
-                    break;
-                }
-            }
-        }
+        int textureId = textureSlot(sprite);
+        float x = transform.getX(), y = transform.getY();
+        float scaleX = transform.getScaleX(), scaleY = transform.getScaleY();
+
+        VertexAttribute pos = layout.get(POS);
+        VertexAttribute col = layout.get(COLOR);
+        VertexAttribute uv = layout.get(TEX_COORDS);
+        VertexAttribute texId = layout.get(TEX_ID);
 
         /*
         * add vertice with the appropriate properties;
@@ -220,31 +534,97 @@ public class RenderBatch implements Comparable<RenderBatch>{
             }
 
             // load positions :
-            vertices[offset] = sprite.gameObject.transform.position.x + (xAdd * sprite.gameObject.transform.scale.x);
-            vertices[offset + 1] = sprite.gameObject.transform.position.y + (yAdd * sprite.gameObject.transform.scale.y);
+            pos.put(vertexData, offset, 0, x + (xAdd * scaleX));
+            pos.put(vertexData, offset, 1, y + (yAdd * scaleY));
 
             // load color:
-            vertices[offset+2] = color.x;
-            vertices[offset+3] = color.y;
-            vertices[offset+4] = color.z;
-            vertices[offset+5] = color.w;
+            col.put(vertexData, offset, 0, color.x);
+            col.put(vertexData, offset, 1, color.y);
+            col.put(vertexData, offset, 2, color.z);
+            col.put(vertexData, offset, 3, color.w);
 
             // load texture coordinates
-            vertices[offset+6] = texCoords[i].x;
-            vertices[offset+7] = texCoords[i].y;
+            uv.put(vertexData, offset, 0, texCoords[i].x);
+            uv.put(vertexData, offset, 1, texCoords[i].y);
 
             // load id
-            vertices[offset+8] = textureId;
+            texId.put(vertexData, offset, 0, textureId);
+
+            offset += stride;
+        }
+    }
+
+    /*
+    * [0, texture, texture, texture, ... ] looping until we find texture that matches..
+    * 0 is special slot that just saves space so we can add textures + 1 in relation to this one
+    * */
+    protected int textureSlot(SpriteRenderer sprite) {
+        if (sprite.renderTexture() != null && textureArray != null) {
+            // with texture array, id is layer + 1
+            return sprite.renderTexture().getLayer() + 1;
+        }
+        if (sprite.renderTexture() != null) {
+            for (int i=0; i< textures.size(); i++) {
+                if (textures.get(i) == sprite.renderTexture()) {
+                    return i + 1;
+                }
+            }
+        }
+        return 0;
+    }
 
-            offset += VERTEX_SIZE;
+    /*
+    * Adds sprite index to dirty ranges. Indexes come in ascending order from render() loop,
+    * so only last range has to be checked for merging.
+    * */
+    private void markDirty(int index) {
+        if (numDirtyRanges > 0) {
+            int last = numDirtyRanges - 1;
+            if (index <= dirtyRangeEnd[last] + DIRTY_RANGE_MERGE_GAP || numDirtyRanges == MAX_DIRTY_RANGES) {
+                // close enough to previous range, or out of ranges. Extend last range.
+                dirtyRangeEnd[last] = index + 1;
+                return;
+            }
+        }
+        dirtyRangeStart[numDirtyRanges] = index;
+        dirtyRangeEnd[numDirtyRanges] = index + 1;
+        numDirtyRanges++;
+    }
+
+    private void uploadDirtyRanges() {
+        int dirtySprites = 0;
+        for (int i=0; i< numDirtyRanges; i++) {
+            dirtySprites += dirtyRangeEnd[i] - dirtyRangeStart[i];
+        }
+
+        // most of the batch changed, one upload of whole batch is cheaper than many small ones.
+        // orphaned and ring buffers start empty, so they always get the whole batch.
+        if (dirtySprites >= numSprites * FULL_UPLOAD_THRESHOLD || !vertexStream.supportsPartialUpload()) {
+            uploadRange(0, numSprites);
+            return;
+        }
+
+        for (int i=0; i< numDirtyRanges; i++) {
+            uploadRange(dirtyRangeStart[i], dirtyRangeEnd[i]);
         }
     }
 
+    /*
+    * Uploads vertices of sprites from start (inclusive) to end (exclusive).
+    * */
+    private void uploadRange(int start, int end) {
+        int firstByte = start * bytesPerSprite;
+        int byteCount = (end - start) * bytesPerSprite;
+
+        vertexStream.upload(vertexData, firstByte, byteCount);
+        bytesUploaded += byteCount;
+    }
+
     private int[] generateIndices() {
         // 6 indices per quad ( 3 per triangle )
         int [] elements = new int[6* maxBatchSize];
         for (int i=0; i< maxBatchSize; i++) {
-            loadElementIndices(elements, i);
+            loadElementIndices(elements, i, i);
         }
         return elements;
     }
@@ -252,8 +632,8 @@ public class RenderBatch implements Comparable<RenderBatch>{
     /*
     * mapping the values to the triangles in sprite.
     * */
-    private void loadElementIndices(int[] elements, int index) {
-        int offsetArrayIndex = 6 * index;
+    private void loadElementIndices(int[] elements, int position, int index) {
+        int offsetArrayIndex = 6 * position;
         int offset = 4 * index;
         // 3, 2, 0, 0, 2, 1          7, 6, 4, 4, 6, 5
         // creating Triangle 1
@@ -267,6 +647,30 @@ public class RenderBatch implements Comparable<RenderBatch>{
         elements[offsetArrayIndex + 5 ] = offset + 1;
     }
 
+    /*
+    * Static batch loads sprites marked dirty on next rebuffer(), call after changing static sprite.
+    * */
+    public void invalidate(SpriteRenderer spr) {
+        spr.markDirty();
+        staticDirty = true;
+    }
+
+    public boolean isStatic() {
+        return this.isStatic;
+    }
+
+    public void setSpatialGrid(SpatialGrid spatialGrid) {
+        this.spatialGrid = spatialGrid;
+    }
+
+    public Runnable getPrepareTask() {
+        return this.prepareTask;
+    }
+
+    public void setPrepareTask(Runnable prepareTask) {
+        this.prepareTask = prepareTask;
+    }
+
     public boolean hasRoom () {
         return this.hasRoom;
     }
@@ -276,13 +680,53 @@ public class RenderBatch implements Comparable<RenderBatch>{
     }
 
     public boolean hasTexture(Texture tex) {
+        if (textureArray != null) {
+            return tex.getArray() == textureArray;
+        }
         return this.textures.contains(tex);
     }
 
+    /*
+    * Whether sprite with given texture can be added to this batch, when it has room.
+    * Sprites without texture fit into any batch.
+    * */
+    public boolean canTakeTexture(Texture tex) {
+        if (tex == null) {
+            return true;
+        }
+        if (textureArray != null || tex.isArrayLayer()) {
+            return tex.getArray() == textureArray;
+        }
+        return hasTexture(tex) || hasTextureRoom();
+    }
+
+    public TextureArray getTextureArray() {
+        return this.textureArray;
+    }
+
     public int zIndex() {
         return this.zIndex;
     }
 
+    public int getNumSprites() {
+        return this.numSprites;
+    }
+
+    public SpriteRenderer getSprite(int index) {
+        return this.sprites[index];
+    }
+
+    /*
+    * Part of the batch that is used, 0 to 1.
+    * */
+    public float getOccupancy() {
+        return this.numSprites / (float)this.maxBatchSize;
+    }
+
+    public int getBytesUploaded() {
+        return this.bytesUploaded;
+    }
+
     /*
     * method required by comparable implemented class
     * */
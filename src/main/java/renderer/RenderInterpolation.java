@@ -0,0 +1,88 @@
+package renderer;
+
+import components.SpriteRenderer;
+import domo.Camera;
+import org.joml.Vector2f;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+* Render side of fixed timestep. Simulation runs at its own tick rate, so a frame usually falls between two ticks.
+* Sprites that moved during the latest tick and the camera are drawn alpha of the way from previous tick to latest one,
+* which keeps motion smooth whatever the frame rate is. Drawn state is one tick behind simulation.
+* Filled by RenderSnapshot.apply(), apply(alpha) is called once per frame before drawing, all on render thread.
+* */
+public class RenderInterpolation {
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private Camera camera; // render camera, null when scene has none
+    private Vector2f fromCamera = new Vector2f();
+    private Vector2f toCamera = new Vector2f();
+    private List<SpriteRenderer> moving = new ArrayList<>(); // sprites changed during latestTick
+    private long latestTick;
+    private long latestTickTime; // simulation clock of latestTick, System.nanoTime() based
+    // -----------------------------------------------------------------------
+
+    public RenderInterpolation(Camera camera) {
+        this.camera = camera;
+        if (camera != null) {
+            fromCamera.set(camera.getPosition());
+            toCamera.set(camera.getPosition());
+        }
+    }
+
+    /*
+    * Simulation reached new tick. Sprites that moved during previous tick but not during this one stop where they are.
+    * */
+    public void beginTick(long tick, long tickTime) {
+        for (int i=0; i< moving.size(); i++) {
+            SpriteRenderer spr = moving.get(i);
+            if (spr.stateTick() != tick) {
+                spr.settle();
+            }
+        }
+        moving.clear();
+        latestTick = tick;
+        latestTickTime = tickTime;
+    }
+
+    /*
+    * Sprite changed during latest tick, its state before that tick is kept in SpriteRenderer.
+    * */
+    public void spriteMoved(SpriteRenderer spr) {
+        moving.add(spr);
+    }
+
+    /*
+    * Camera position of tick before latest one and of the latest one.
+    * */
+    public void moveCamera(float fromX, float fromY, float toX, float toY) {
+        fromCamera.set(fromX, fromY);
+        toCamera.set(toX, toY);
+    }
+
+    public Vector2f cameraPosition() {
+        return this.toCamera;
+    }
+
+    /*
+    * Puts sprites and camera alpha of the way between the last two ticks, 0 is previous tick and 1 the latest.
+    * */
+    public void apply(float alpha) {
+        for (int i=0; i< moving.size(); i++) {
+            moving.get(i).interpolate(alpha);
+        }
+        if (camera != null) {
+            camera.setPosition(fromCamera.x + (toCamera.x - fromCamera.x) * alpha,
+                    fromCamera.y + (toCamera.y - fromCamera.y) * alpha);
+        }
+    }
+
+    public long latestTick() {
+        return this.latestTick;
+    }
+
+    public long latestTickTime() {
+        return this.latestTickTime;
+    }
+}
@@ -0,0 +1,247 @@
+package renderer;
+
+import components.Sprite;
+import components.SpriteRenderer;
+import domo.Camera;
+import domo.Transform;
+import org.joml.Vector2f;
+import org.joml.Vector4f;
+
+import java.util.Arrays;
+
+/*
+* Everything that changed in the scene during one or more simulation ticks, as plain values:
+* transforms, colors and sprites of changed sprites, sprites added, removed and hidden, and camera position.
+* Filled on simulation thread, applied to renderer on render thread, see SnapshotExchange.
+* Records are applied in the order they were written, so later state of the same sprite wins.
+* Every record carries the simulation tick it was captured at, so interpolation knows which sprites moved last tick.
+* Z-index, static and active flags of game object are captured too, renderer never reads game objects of sprites.
+* Sprite of inactive (released pooled) game object is hidden, it keeps its batch slot but is not drawn.
+* */
+public class RenderSnapshot {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private static final byte UPDATE = 0;
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte INVALIDATE = 3; // update of static sprite, renderer has to be told about it
+    private static final byte HIDE = 4; // sprite of released pooled game object, keeps its batch slot but is not drawn
+    private final int FLOATS_PER_RECORD = 8; // position x y, scale x y, color r g b a
+    private final int INITIAL_RECORDS = 64;
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private byte[] ops;
+    private SpriteRenderer[] sprites;
+    private Sprite[] spriteStates; // sprite (texture and tex coords) at the time of record
+    private float[] values;
+    private long[] ticks; // simulation tick of every record
+    private int[] zIndexes; // of game object at the time of record
+    private boolean[] statics;
+    private boolean[] visibles; // game object was active at the time of record
+    private int size;
+    private int tickStart; // first record of the tick being written, see endTick()
+    private long lastTick; // latest tick in this snapshot, 0 when it has none
+    private long tickTime; // simulation clock of lastTick
+
+    private boolean hasCamera;
+    private float cameraX, cameraY;
+    private boolean hasPrevCamera; // camera of the tick before lastTick is in this snapshot too
+    private float prevCameraX, prevCameraY;
+    // -----------------------------------------------------------------------
+
+    public RenderSnapshot() {
+        ops = new byte[INITIAL_RECORDS];
+        sprites = new SpriteRenderer[INITIAL_RECORDS];
+        spriteStates = new Sprite[INITIAL_RECORDS];
+        values = new float[INITIAL_RECORDS * FLOATS_PER_RECORD];
+        ticks = new long[INITIAL_RECORDS];
+        zIndexes = new int[INITIAL_RECORDS];
+        statics = new boolean[INITIAL_RECORDS];
+        visibles = new boolean[INITIAL_RECORDS];
+    }
+
+    public void update(SpriteRenderer spr) {
+        record(UPDATE, spr);
+    }
+
+    public void add(SpriteRenderer spr) {
+        record(ADD, spr);
+    }
+
+    public void remove(SpriteRenderer spr) {
+        record(REMOVE, spr);
+    }
+
+    public void invalidate(SpriteRenderer spr) {
+        record(INVALIDATE, spr);
+    }
+
+    /*
+    * Sprite of game object made inactive stays in its batch, but is not drawn, see Scene.release().
+    * Any later record of it with game object active shows it again.
+    * */
+    public void hide(SpriteRenderer spr) {
+        record(HIDE, spr);
+    }
+
+    public void setCamera(Camera camera) {
+        hasCamera = true;
+        cameraX = camera.getPosition().x();
+        cameraY = camera.getPosition().y();
+    }
+
+    /*
+    * Ends simulation tick: records written since previous endTick() belong to given tick.
+    * tickTime is System.nanoTime() based simulation clock at the end of the tick.
+    * */
+    public void endTick(long tick, long tickTime) {
+        Arrays.fill(ticks, tickStart, size, tick);
+        tickStart = size;
+        lastTick = tick;
+        this.tickTime = tickTime;
+    }
+
+    /*
+    * Captures current simulation state of the sprite.
+    * */
+    private void record(byte op, SpriteRenderer spr) {
+        ensureRoom();
+        ops[size] = op;
+        sprites[size] = spr;
+        spriteStates[size] = spr.getSprite();
+        zIndexes[size] = spr.gameObject.zIndex();
+        statics[size] = spr.gameObject.isStatic();
+        visibles[size] = spr.gameObject.isActive();
+
+        Transform transform = spr.gameObject.transform;
+        Vector4f color = spr.getColor();
+        int offset = size * FLOATS_PER_RECORD;
+        values[offset] = transform.getX();
+        values[offset + 1] = transform.getY();
+        values[offset + 2] = transform.getScaleX();
+        values[offset + 3] = transform.getScaleY();
+        values[offset + 4] = color.x;
+        values[offset + 5] = color.y;
+        values[offset + 6] = color.z;
+        values[offset + 7] = color.w;
+        size++;
+    }
+
+    private void ensureRoom() {
+        if (size == ops.length) {
+            int capacity = size * 2;
+            ops = Arrays.copyOf(ops, capacity);
+            sprites = Arrays.copyOf(sprites, capacity);
+            spriteStates = Arrays.copyOf(spriteStates, capacity);
+            values = Arrays.copyOf(values, capacity * FLOATS_PER_RECORD);
+            ticks = Arrays.copyOf(ticks, capacity);
+            zIndexes = Arrays.copyOf(zIndexes, capacity);
+            statics = Arrays.copyOf(statics, capacity);
+            visibles = Arrays.copyOf(visibles, capacity);
+        }
+    }
+
+    /*
+    * Appends all records of other snapshot, for when renderer did not take this one yet.
+    * */
+    public void append(RenderSnapshot other) {
+        for (int i=0; i< other.size; i++) {
+            ensureRoom();
+            ops[size] = other.ops[i];
+            sprites[size] = other.sprites[i];
+            spriteStates[size] = other.spriteStates[i];
+            ticks[size] = other.ticks[i];
+            zIndexes[size] = other.zIndexes[i];
+            statics[size] = other.statics[i];
+            visibles[size] = other.visibles[i];
+            System.arraycopy(other.values, i * FLOATS_PER_RECORD, values, size * FLOATS_PER_RECORD, FLOATS_PER_RECORD);
+            size++;
+        }
+        tickStart = size;
+        if (other.lastTick != 0) {
+            lastTick = other.lastTick;
+            tickTime = other.tickTime;
+        }
+        if (other.hasCamera) {
+            // camera of this snapshot is from the tick before the one other snapshot ends with
+            if (other.hasPrevCamera) {
+                hasPrevCamera = true;
+                prevCameraX = other.prevCameraX;
+                prevCameraY = other.prevCameraY;
+            } else if (hasCamera) {
+                hasPrevCamera = true;
+                prevCameraX = cameraX;
+                prevCameraY = cameraY;
+            }
+            hasCamera = true;
+            cameraX = other.cameraX;
+            cameraY = other.cameraY;
+        }
+    }
+
+    /*
+    * Applies all records to renderer, on render thread. Sprites updated during the latest tick
+    * and camera are handed to interpolation, which places them between the last two ticks.
+    * */
+    public void apply(Renderer renderer, RenderInterpolation interpolation) {
+        for (int i=0; i< size; i++) {
+            SpriteRenderer spr = sprites[i];
+            if (ops[i] == REMOVE) {
+                renderer.remove(spr);
+                continue;
+            }
+
+            // only updates move smoothly, added and invalidated sprites jump right to their state
+            boolean moving = ops[i] == UPDATE && ticks[i] == lastTick;
+            int offset = i * FLOATS_PER_RECORD;
+            boolean textureChanged = spr.applyState(ticks[i], moving, values[offset], values[offset + 1], values[offset + 2], values[offset + 3],
+                    values[offset + 4], values[offset + 5], values[offset + 6], values[offset + 7], spriteStates[i]);
+            if (ops[i] == ADD) {
+                spr.setRenderVisible(visibles[i]);
+                renderer.add(spr, zIndexes[i], statics[i]);
+                continue;
+            }
+            if (ops[i] == INVALIDATE || ops[i] == HIDE) {
+                renderer.invalidate(spr, zIndexes[i], statics[i]);
+            }
+            if (spr.isRenderVisible() != visibles[i]) {
+                renderer.setVisible(spr, visibles[i]);
+            }
+            // batch was picked by texture, sprite with new texture may not fit into it anymore
+            if (textureChanged && renderer.contains(spr)) {
+                renderer.remove(spr);
+                renderer.add(spr, zIndexes[i], statics[i]);
+            }
+        }
+
+        if (lastTick != 0) {
+            interpolation.beginTick(lastTick, tickTime);
+            for (int i=0; i< size; i++) {
+                if (ops[i] == UPDATE && ticks[i] == lastTick && renderer.contains(sprites[i])) {
+                    interpolation.spriteMoved(sprites[i]);
+                }
+            }
+        }
+        if (hasCamera) {
+            Vector2f from = interpolation.cameraPosition();
+            interpolation.moveCamera(hasPrevCamera ? prevCameraX : from.x, hasPrevCamera ? prevCameraY : from.y, cameraX, cameraY);
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(sprites, 0, size, null);
+        Arrays.fill(spriteStates, 0, size, null);
+        size = 0;
+        tickStart = 0;
+        lastTick = 0;
+        hasCamera = false;
+        hasPrevCamera = false;
+    }
+
+    public boolean isEmpty() {
+        return size == 0 && !hasCamera && lastTick == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+}
@@ -1,12 +1,23 @@
 package renderer;
 
 import components.SpriteRenderer;
+import domo.Camera;
 import domo.GameObject;
+import domo.Transform;
+import domo.TransformStore;
+import profiling.FramePhaseEvent;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Phaser;
+import java.util.function.Consumer;
 
 /*
 * Renders all the objects.
@@ -14,49 +25,425 @@ import java.util.List;
 public class Renderer {
     // ------------------------ STATIC PROPERTIES ----------------------------
     private final int MAX_BATCH_SIZE = 1000; // batching more items together increases FPS. Making it smaller will reduce FPS alot
+    private final float MERGE_OCCUPANCY = 0.25f; // batch used less than this after removal is merged into other batch
+    private final float GRID_CELL_SIZE = 256.0f; // in world units, 5 x 3 cells cover the camera view
+    private final int PARALLEL_PREPARE_SPRITES = 2 * MAX_BATCH_SIZE; // fewer sprites are prepared on GL thread, not worth handing out
     // -----------------------------------------------------------------------
     // ------------------------ DYNAMIC PROPERTIES ----------------------------
-    private List<RenderBatch> batches;
+    private TreeMap<Long, BatchLayer> layers; // batches by BatchLayer.key(), iterated from lowest z-index to highest
+    private Map<SpriteRenderer, RenderBatch> spriteBatches; // batch every sprite was added to
+    private TransformStore renderTransforms = new TransformStore(); // render transforms of sprites in renderer, read by batches and culling
+    private StreamingMode streamingMode; // how batches of this renderer stream vertices to GPU
+    private boolean instanced; // draw sprites with InstancedRenderBatch instead of 4 vertices per sprite
+    private VertexLayout vertexLayout; // SPRITE_FLOAT or SPRITE_PACKED, for not instanced batches
+    private int bytesUploaded; // bytes of vertex data sent to GPU during last frame
+    private SpatialGrid spatialGrid;
+    private boolean culling = true; // draw only sprites inside of camera view
+    private int frame;
+    private float cullMinX, cullMinY, cullMaxX, cullMaxY; // camera view of the frame being culled
+    private final Consumer<SpriteRenderer> cullVisitor = this::cullSprite;
+    private int visibleSprites; // sprites drawn during last frame
+    private int culledSprites;  // sprites skipped during last frame, because they were outside of camera view
+    private int drawCalls; // draw calls made during last frame
+    private int spritesDrawn; // sprites drawn during last frame, culling decides which batches draw at all
+    private CameraUniforms cameraUniforms; // created on first render(), when GL context is surely there
+    private Executor prepareExecutor = ForkJoinPool.commonPool(); // builds vertices of batches in parallel, null for GL thread only
+    private List<RenderBatch> frameBatches = new ArrayList<>(); // all batches in draw order, collected every frame
+    private final Phaser preparePhaser = new Phaser(1); // GL thread is the one permanent party, batch tasks join per frame
+    private volatile Throwable prepareFailure; // thrown by a batch prepared on worker thread, rethrown on GL thread
     // -----------------------------------------------------------------------
 
     public Renderer() {
-        this.batches = new ArrayList<>();
+        this(StreamingMode.SUB_DATA);
     }
 
+    public Renderer(StreamingMode streamingMode) {
+        this(streamingMode, false);
+    }
+
+    public Renderer(StreamingMode streamingMode, boolean instanced) {
+        this(streamingMode, instanced, VertexLayout.SPRITE_FLOAT);
+    }
+
+    public Renderer(StreamingMode streamingMode, VertexLayout vertexLayout) {
+        this(streamingMode, false, vertexLayout);
+    }
+
+    private Renderer(StreamingMode streamingMode, boolean instanced, VertexLayout vertexLayout) {
+        this.layers = new TreeMap<>();
+        this.spriteBatches = new IdentityHashMap<>();
+        this.spatialGrid = new SpatialGrid(GRID_CELL_SIZE);
+        this.streamingMode = streamingMode;
+        this.instanced = instanced;
+        this.vertexLayout = vertexLayout;
+    }
+
+    /*
+    * Reads game object right away, call it on the thread that owns game object.
+    * */
     public void add(GameObject go) {
         SpriteRenderer spr = go.getComponent(SpriteRenderer.class);
         if(spr!= null) {
-            add(spr);
+            spr.setRenderVisible(go.isActive());
+            add(spr, go.zIndex(), go.isStatic());
+        }
+    }
+
+    /*
+    * zIndex and static flag are passed in, as captured together with sprite's render state.
+    * Renderer never reads game object of the sprite, it may be changed by simulation thread in the meantime.
+    * */
+    public void add(SpriteRenderer spr, int zIndex, boolean isStatic) {
+        BatchLayer layer = layers.get(BatchLayer.key(zIndex, isStatic));
+        if (layer == null) {
+            // TreeMap keeps layers sorted, so z-indexes are not messed up
+            layer = new BatchLayer(zIndex, isStatic);
+            layers.put(layer.key(), layer);
+        }
+
+        Texture tex = spr.renderTexture();
+        RenderBatch batch = layer.findBatch(tex);
+        if (batch == null) {
+            batch = createBatch(layer.zIndex(), isStatic, tex != null ? tex.getArray() : null);
+            batch.start();
+            batch.setSpatialGrid(spatialGrid);
+            batch.setPrepareTask(prepareTask(batch));
+            layer.addBatch(batch);
         }
+        spr.renderTransform().attach(renderTransforms);
+        batch.addSprite(spr);
+        layer.spriteAdded(batch, tex);
+        spriteBatches.put(spr, batch);
+        spatialGrid.insert(spr);
     }
 
-    public void add(SpriteRenderer spr) {
-        boolean added = false;
-        for (RenderBatch batch : batches) {
-            if (batch.hasRoom() && batch.zIndex() == spr.gameObject.zIndex()) {
-                Texture tex = spr.getTexture();
-                if (tex != null && (batch.hasTexture(tex) || batch.hasTextureRoom())) {
-                    batch.addSprite(spr);
-                    added = true;
-                    break;
+    public void remove(GameObject go) {
+        SpriteRenderer spr = go.getComponent(SpriteRenderer.class);
+        if (spr != null) {
+            remove(spr);
+        }
+    }
+
+    /*
+    * Stops drawing sprite. Empty batches are destroyed, and batches which became mostly empty
+    * are merged into other batch of the same z-index, so GPU buffers and draw calls do not pile up.
+    * */
+    public boolean remove(SpriteRenderer spr) {
+        RenderBatch batch = spriteBatches.remove(spr);
+        if (batch == null) {
+            return false;
+        }
+        Texture tex = spr.renderTexture();
+        batch.removeSprite(spr);
+        spatialGrid.remove(spr);
+        spr.renderTransform().detach();
+
+        BatchLayer layer = layers.get(BatchLayer.key(batch.zIndex(), batch.isStatic()));
+        if (batch.getNumSprites() == 0) {
+            removeBatch(layer, batch);
+        } else {
+            layer.spriteRemoved(batch, tex);
+            if (batch.getOccupancy() < MERGE_OCCUPANCY) {
+                mergeIntoOtherBatch(layer, batch);
+            }
+        }
+        return true;
+    }
+
+    private void mergeIntoOtherBatch(BatchLayer layer, RenderBatch batch) {
+        for (RenderBatch other : layer.getBatches()) {
+            if (other == batch || !other.canTakeAll(batch)) {
+                continue;
+            }
+            // take sprites from the end, nothing has to be moved inside of the batch that is emptied
+            while (batch.getNumSprites() > 0) {
+                SpriteRenderer spr = batch.getSprite(batch.getNumSprites() - 1);
+                batch.removeSprite(spr);
+                other.addSprite(spr);
+                layer.spriteAdded(other, spr.renderTexture());
+                spriteBatches.put(spr, other);
+            }
+            removeBatch(layer, batch);
+            return;
+        }
+    }
+
+    private void removeBatch(BatchLayer layer, RenderBatch batch) {
+        layer.removeBatch(batch);
+        batch.destroy();
+        if (layer.isEmpty()) {
+            layers.remove(layer.key());
+        }
+    }
+
+    /*
+    * Static sprites are not checked for changes, this makes renderer load the sprite again.
+    * Also moves sprite to other batch when static flag or z-index of its game object changed,
+    * both as captured with sprite's render state, see add().
+    * */
+    public void invalidate(SpriteRenderer spr, int zIndex, boolean isStatic) {
+        RenderBatch batch = spriteBatches.get(spr);
+        if (batch == null) {
+            return;
+        }
+        if (batch.isStatic() != isStatic || batch.zIndex() != zIndex) {
+            remove(spr);
+            add(spr, zIndex, isStatic);
+        } else {
+            batch.invalidate(spr);
+        }
+    }
+
+    /*
+    * Hidden sprite keeps its batch slot, but is neither culled nor drawn. Sprites are added as their flag says.
+    * */
+    public void setVisible(SpriteRenderer spr, boolean visible) {
+        RenderBatch batch = spriteBatches.get(spr);
+        if (batch != null) {
+            batch.setVisible(spr, visible);
+        } else {
+            spr.setRenderVisible(visible);
+        }
+    }
+
+    public boolean contains(SpriteRenderer spr) {
+        return spriteBatches.containsKey(spr);
+    }
+
+    public int getNumBatches() {
+        int count = 0;
+        for (BatchLayer layer : layers.values()) {
+            count += layer.getBatches().size();
+        }
+        return count;
+    }
+
+    /*
+    * Adds sprites of all game objects at once. Sprites are grouped by z-index, static flag and texture first,
+    * so sprites sharing texture end up next to each other in as few batches as possible.
+    * Sprites without texture go last, they fill whatever room is left.
+    * Reads game objects right away, like add(GameObject).
+    * */
+    public void addAll(List<GameObject> gameObjects) {
+        // layer (z-index and static) -> texture (or texture array) -> sprites
+        Map<Long, Map<Object, List<SpriteRenderer>>> plan = new TreeMap<>();
+        for (GameObject go : gameObjects) {
+            SpriteRenderer spr = go.getComponent(SpriteRenderer.class);
+            if (spr == null) {
+                continue;
+            }
+            spr.setRenderVisible(go.isActive()); // released pooled game objects are added hidden
+            Texture tex = spr.renderTexture();
+            Object key = tex == null ? null : (tex.isArrayLayer() ? tex.getArray() : tex);
+            plan.computeIfAbsent(BatchLayer.key(go.zIndex(), go.isStatic()), z -> new LinkedHashMap<>())
+                    .computeIfAbsent(key, k -> new ArrayList<>())
+                    .add(spr);
+        }
+
+        for (Map.Entry<Long, Map<Object, List<SpriteRenderer>>> layer : plan.entrySet()) {
+            int zIndex = BatchLayer.zIndex(layer.getKey());
+            boolean isStatic = BatchLayer.isStatic(layer.getKey());
+            Map<Object, List<SpriteRenderer>> byTexture = layer.getValue();
+            List<SpriteRenderer> untextured = byTexture.remove(null);
+            for (List<SpriteRenderer> sprites : byTexture.values()) {
+                for (SpriteRenderer spr : sprites) {
+                    add(spr, zIndex, isStatic);
+                }
+            }
+            if (untextured != null) {
+                for (SpriteRenderer spr : untextured) {
+                    add(spr, zIndex, isStatic);
                 }
             }
         }
+    }
 
-        if(!added) {
-            RenderBatch newBatch = new RenderBatch(MAX_BATCH_SIZE, spr.gameObject.zIndex());
-            newBatch.start();
-            batches.add(newBatch);
-            newBatch.addSprite(spr);
-            Collections.sort(batches); // sort batches so that z-indexes are not messed up
-//            Collections.sort(batches, Collections.reverseOrder()); // sort batches in reverse-order
+    /*
+    * textureArray is null for batch that binds separate textures into slots.
+    * */
+    private RenderBatch createBatch(int zIndex, boolean isStatic, TextureArray textureArray) {
+        StreamingMode mode = isStatic ? StreamingMode.STATIC : streamingMode;
+        if (instanced) {
+            return new InstancedRenderBatch(MAX_BATCH_SIZE, zIndex, mode, textureArray);
+        }
+        return new RenderBatch(MAX_BATCH_SIZE, zIndex, mode, vertexLayout, textureArray);
+    }
+
+    /*
+    * Draws all sprites as seen by given camera. Sprites are drawn from their render state, see SpriteRenderer.
+    * */
+    public void render(Camera camera) {
+        bytesUploaded = 0;
+        frame++;
+        GLState.resetCounters();
+
+        if (cameraUniforms == null) {
+            cameraUniforms = new CameraUniforms();
+            cameraUniforms.start();
+        }
+        cameraUniforms.update(camera);
+
+        frameBatches.clear();
+        for (BatchLayer layer : layers.values()) {
+            frameBatches.addAll(layer.getBatches());
+        }
+
+        // build vertices of moved sprites, then upload them, that also moves them to their new grid cells
+        FramePhaseEvent phase = FramePhaseEvent.start(FramePhaseEvent.PREPARE);
+        prepareBatches();
+        FramePhaseEvent.end(phase);
+
+        phase = FramePhaseEvent.start(FramePhaseEvent.UPLOAD);
+        for (RenderBatch batch : frameBatches) {
+            batch.submit();
+            bytesUploaded += batch.getBytesUploaded();
+        }
+        FramePhaseEvent.end(phase);
+
+        phase = FramePhaseEvent.start(FramePhaseEvent.CULL);
+        if (culling) {
+            cull(camera);
+        } else {
+            visibleSprites = 0;
+            for (RenderBatch batch : frameBatches) {
+                visibleSprites += batch.getNumShown();
+            }
+            culledSprites = 0;
+        }
+        FramePhaseEvent.end(phase);
+
+        phase = FramePhaseEvent.start(FramePhaseEvent.DRAW);
+        drawCalls = 0;
+        spritesDrawn = 0;
+        for (RenderBatch batch : frameBatches) {
+            int drawn = batch.render(culling);
+            if (drawn > 0) {
+                drawCalls++;
+                spritesDrawn += drawn;
+            }
+        }
+        FramePhaseEvent.end(phase);
+    }
+
+    /*
+    * Prepare phase of the frame. Vertex building is plain CPU work without GL, so batches are handed out
+    * to prepareExecutor and this waits until all of them are done. Submit phase that follows runs on GL thread.
+    * */
+    private void prepareBatches() {
+        int numBatches = frameBatches.size();
+        if (prepareExecutor == null || numBatches < 2 || spriteBatches.size() < PARALLEL_PREPARE_SPRITES) {
+            for (RenderBatch batch : frameBatches) {
+                batch.prepare();
+            }
+            return;
+        }
+
+        // tasks were made together with their batches and phaser is reused, nothing is allocated per frame
+        preparePhaser.bulkRegister(numBatches - 1);
+        for (int i=1; i< numBatches; i++) {
+            prepareExecutor.execute(frameBatches.get(i).getPrepareTask());
+        }
+        // GL thread prepares the first batch itself instead of waiting idle
+        try {
+            frameBatches.get(0).prepare();
+        } finally {
+            preparePhaser.arriveAndAwaitAdvance();
+        }
+        Throwable failure = prepareFailure;
+        if (failure != null) {
+            prepareFailure = null;
+            throw new CompletionException(failure);
+        }
+    }
+
+    /*
+    * Prepares batch on worker thread for prepareBatches(), made once per batch.
+    * */
+    private Runnable prepareTask(RenderBatch batch) {
+        return () -> {
+            try {
+                batch.prepare();
+            } catch (Throwable t) {
+                prepareFailure = t;
+            } finally {
+                preparePhaser.arriveAndDeregister();
+            }
+        };
+    }
+
+    /*
+    * Executor for prepare phase of render(), default is ForkJoinPool.commonPool().
+    * null prepares all batches on GL thread.
+    * */
+    public void setPrepareExecutor(Executor prepareExecutor) {
+        this.prepareExecutor = prepareExecutor;
+    }
 
+    /*
+    * Builds draw lists of all batches from sprites in grid cells that overlap camera view.
+    * */
+    private void cull(Camera camera) {
+        for (BatchLayer layer : layers.values()) {
+            for (RenderBatch batch : layer.getBatches()) {
+                batch.beginCulling();
+            }
+        }
+
+        cullMinX = camera.getPosition().x();
+        cullMinY = camera.getPosition().y();
+        cullMaxX = cullMinX + camera.getViewWidth();
+        cullMaxY = cullMinY + camera.getViewHeight();
+        spatialGrid.query(cullMinX, cullMinY, cullMaxX, cullMaxY, cullVisitor);
+
+        visibleSprites = 0;
+        for (BatchLayer layer : layers.values()) {
+            for (RenderBatch batch : layer.getBatches()) {
+                visibleSprites += batch.getNumVisible();
+            }
         }
+        culledSprites = spriteBatches.size() - visibleSprites;
     }
 
-    public void render() {
-        for (RenderBatch batch: batches) {
-            batch.render();
+    /*
+    * Visitor of spatial grid query in cull(), a method reference kept in field so no lambda is allocated per frame.
+    * */
+    private void cullSprite(SpriteRenderer spr) {
+        // cells are bigger than sprites, check sprite itself against the view
+        Transform t = spr.renderTransform();
+        float x = t.getX(), y = t.getY(), x2 = x + t.getScaleX(), y2 = y + t.getScaleY();
+        if (Math.max(x, x2) < cullMinX || Math.min(x, x2) > cullMaxX || Math.max(y, y2) < cullMinY || Math.min(y, y2) > cullMaxY) {
+            return;
+        }
+        RenderBatch batch = spriteBatches.get(spr);
+        if (batch != null) {
+            batch.markVisible(spr, frame);
         }
     }
+
+    /*
+    * Turns camera culling on or off, when off all sprites are drawn every frame.
+    * */
+    public void setCulling(boolean culling) {
+        this.culling = culling;
+    }
+
+    public int getVisibleSprites() {
+        return this.visibleSprites;
+    }
+
+    public int getCulledSprites() {
+        return this.culledSprites;
+    }
+
+    public int getBytesUploaded() {
+        return this.bytesUploaded;
+    }
+
+    public int getDrawCalls() {
+        return this.drawCalls;
+    }
+
+    public int getSpritesDrawn() {
+        return this.spritesDrawn;
+    }
 }
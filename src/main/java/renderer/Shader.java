@@ -3,29 +3,39 @@ package renderer;
 import org.joml.Matrix3f;
 import org.joml.Matrix4f;
 import org.joml.Vector4f;
-import org.lwjgl.BufferUtils;
+import org.lwjgl.system.MemoryStack;
 
 import java.io.IOException;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import static org.lwjgl.opengl.GL11.GL_FALSE;
 import static org.lwjgl.opengl.GL20.*;
-import static org.lwjgl.opengl.GL20.glGetShaderInfoLog;
+import static org.lwjgl.opengl.GL31.GL_INVALID_INDEX;
+import static renderer.Graphics.device;
 
 public class Shader {
     private int shaderProgramID;
-    private boolean beingUsed = false; // is shader being used?
     private String vertexSource;
     private String fragmentSource;
     private String filepath;
+    private Map<String, Uniform> uniforms = new HashMap<>(); // active uniforms by name, filled after linking
+
+    public Shader(String filepath) {
+        this(filepath, new String[0]);
+    }
 
     /*
     * opening the file from shaders default.glsl for example.
     * setting regex from all lines in .glsl file.
+    * every define is added as '#define NAME' line right after #version, so one file can have variants with #ifdef.
     * */
-    public Shader(String filepath) {
+    public Shader(String filepath, String... defines) {
         this.filepath = filepath;
         try {
             String source = new String(Files.readAllBytes(Paths.get(filepath)));
@@ -61,6 +71,9 @@ public class Shader {
                 throw new IOException("Unexpected token " + secondPattern +  " in " + filepath);
             }
 
+            vertexSource = addDefines(vertexSource, defines);
+            fragmentSource = addDefines(fragmentSource, defines);
+
 //            System.out.println(vertexSource);
 //            System.out.println(fragmentSource);
 
@@ -70,6 +83,21 @@ public class Shader {
         }
     }
 
+    private String addDefines(String source, String[] defines) {
+        StringBuilder lines = new StringBuilder();
+        for (String define : defines) {
+            if (define != null) {
+                lines.append("#define ").append(define).append("\n");
+            }
+        }
+        if (lines.length() == 0) {
+            return source;
+        }
+        // #version has to stay first line of the shader
+        int eol = source.indexOf("\n", source.indexOf("#version"));
+        return source.substring(0, eol + 1) + lines + source.substring(eol + 1);
+    }
+
     public void compile() {
         int vertexID, fragmentID;
         /*
@@ -79,131 +107,232 @@ public class Shader {
          * */
 
         // first load and compile the vertex shader:
-        vertexID = glCreateShader(GL_VERTEX_SHADER);
+        vertexID = device().createShader(GL_VERTEX_SHADER);
         // pass the shader source code to the GPU
-        glShaderSource(vertexID, vertexSource);
-        glCompileShader(vertexID);
+        device().shaderSource(vertexID, vertexSource);
+        device().compileShader(vertexID);
 
         /* Check for error in compilation process:
          * will give 0 if fail, 1 if succeed,
-         * glGetShaderi() , gives info:
+         * device().getShaderi() , gives info:
          * glShaderInfoLog requires length, thats why we are getting length of error message
          */
-        int success = glGetShaderi(vertexID, GL_COMPILE_STATUS);
+        int success = device().getShaderi(vertexID, GL_COMPILE_STATUS);
         if (success == GL_FALSE) {
-            int len = glGetShaderi(vertexID, GL_INFO_LOG_LENGTH);
+            int len = device().getShaderi(vertexID, GL_INFO_LOG_LENGTH);
             System.out.println("ERROR: " + filepath + "\n\tVertex shader compilation failed.");
-            System.out.println(glGetShaderInfoLog(vertexID, len));
+            System.out.println(device().getShaderInfoLog(vertexID, len));
             assert false : ""; // breaks out of program if error happens if assertions are enabled.
         }
 
         // second step is to load and compile the fragment shader:
-        fragmentID = glCreateShader(GL_FRAGMENT_SHADER);
+        fragmentID = device().createShader(GL_FRAGMENT_SHADER);
         // pass the shader source code to the GPU
-        glShaderSource(fragmentID, fragmentSource);
-        glCompileShader(fragmentID);
+        device().shaderSource(fragmentID, fragmentSource);
+        device().compileShader(fragmentID);
 
         /* Check for error in compilation process:
          * will give 0 if fail, 1 if succeed,
-         * glGetShaderi() , gives info:
+         * device().getShaderi() , gives info:
          * glShaderInfoLog requires length, thats why we are getting length of error message
          */
-        success = glGetShaderi(fragmentID, GL_COMPILE_STATUS);
+        success = device().getShaderi(fragmentID, GL_COMPILE_STATUS);
         if (success == GL_FALSE) {
-            int len = glGetShaderi(fragmentID, GL_INFO_LOG_LENGTH);
+            int len = device().getShaderi(fragmentID, GL_INFO_LOG_LENGTH);
             System.out.println("ERROR: " + filepath + "\n\tFragment shader compilation failed.");
-            System.out.println(glGetShaderInfoLog(vertexID, len));
+            System.out.println(device().getShaderInfoLog(vertexID, len));
             assert false : ""; // breaks out of program if error happens if assertions are enabled.
         }
 
         /* Link shaders and check for errors*/
-        shaderProgramID = glCreateProgram(); // create unique identifier for new program;
-        glAttachShader(shaderProgramID, vertexID);
-        glAttachShader(shaderProgramID, fragmentID);
-        glLinkProgram(shaderProgramID);
+        shaderProgramID = device().createProgram(); // create unique identifier for new program;
+        device().attachShader(shaderProgramID, vertexID);
+        device().attachShader(shaderProgramID, fragmentID);
+        device().linkProgram(shaderProgramID);
 
         /* check for linking errors */
-        success = glGetProgrami(shaderProgramID, GL_LINK_STATUS);
+        success = device().getProgrami(shaderProgramID, GL_LINK_STATUS);
         if(success == GL_FALSE) {
-            int len = glGetProgrami(shaderProgramID, GL_INFO_LOG_LENGTH);
+            int len = device().getProgrami(shaderProgramID, GL_INFO_LOG_LENGTH);
             System.out.println("ERROR: " + filepath + "\n\tLinking of shaders failed.");
-            System.out.println(glGetProgramInfoLog(shaderProgramID, len));
+            System.out.println(device().getProgramInfoLog(shaderProgramID, len));
             assert false : "";
         }
+
+        loadUniforms();
     }
 
+    /*
+    * bind shader program, does nothing when it is already in use
+    * */
     public void use() {
-        if (!beingUsed) {
-            // bind shader program
-            glUseProgram(shaderProgramID);
-            beingUsed = true;
-        }
+        GLState.useProgram(shaderProgramID);
     }
 
     public void detach() {
-        glUseProgram(0);
-        beingUsed = false;
+        GLState.useProgram(0);
+    }
+
+    /*
+    * Reads locations of all active uniforms once after linking, so uploads do not have to ask GL for them.
+    * Uniform arrays are reported as 'name[0]', they are stored under plain name.
+    * Uniforms that are part of a block (like Camera) have no location and are skipped.
+    * */
+    private void loadUniforms() {
+        uniforms.clear();
+        int count = device().getProgrami(shaderProgramID, GL_ACTIVE_UNIFORMS);
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer size = stack.mallocInt(1);
+            IntBuffer type = stack.mallocInt(1);
+            for (int i=0; i< count; i++) {
+                String name = device().getActiveUniform(shaderProgramID, i, size, type);
+                int location = device().getUniformLocation(shaderProgramID, name);
+                if (location < 0) {
+                    continue;
+                }
+                if (name.endsWith("[0]")) {
+                    name = name.substring(0, name.length() - 3);
+                }
+                uniforms.put(name, new Uniform(location));
+            }
+        }
+
+        int cameraBlock = device().getUniformBlockIndex(shaderProgramID, CameraUniforms.BLOCK_NAME);
+        if (cameraBlock != GL_INVALID_INDEX) {
+            device().uniformBlockBinding(shaderProgramID, cameraBlock, CameraUniforms.BINDING);
+        }
+    }
+
+    /*
+    * Returns cached uniform, or null when shader has no such active uniform (GL would ignore the upload anyway).
+    * Also makes this shader the used one, glUniform* calls go to the program in use.
+    * */
+    private Uniform uniform(String varName) {
+        use();
+        return uniforms.get(varName);
     }
 
     /*
     * Uploads variable matrix into our shader
     * */
     public void uploadMat4f(String varName, Matrix4f mat4) {
-        int varLocation = glGetUniformLocation(shaderProgramID, varName);
-        use(); // local use, to use shader.
-        FloatBuffer matBuffer = BufferUtils.createFloatBuffer(16); // 4x4 matrix
-        mat4.get(matBuffer);
-        glUniformMatrix4fv(varLocation, false, matBuffer);
+        Uniform uniform = uniform(varName);
+        if (uniform == null || (uniform.mat4 != null && uniform.mat4.equals(mat4))) {
+            return;
+        }
+        if (uniform.mat4 == null) {
+            uniform.mat4 = new Matrix4f();
+        }
+        uniform.mat4.set(mat4);
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer matBuffer = stack.mallocFloat(16); // 4x4 matrix
+            mat4.get(matBuffer);
+            device().uniformMatrix4fv(uniform.location, false, matBuffer);
+        }
     }
 
     public void uploadMat3f(String varName, Matrix3f mat3) {
-        int varLocation = glGetUniformLocation(shaderProgramID, varName);
-        use(); // local use, to use shader.
-        FloatBuffer matBuffer = BufferUtils.createFloatBuffer(9); // 4x4 matrix
-        mat3.get(matBuffer);
-        glUniformMatrix3fv(varLocation, false, matBuffer);
+        Uniform uniform = uniform(varName);
+        if (uniform == null || (uniform.mat3 != null && uniform.mat3.equals(mat3))) {
+            return;
+        }
+        if (uniform.mat3 == null) {
+            uniform.mat3 = new Matrix3f();
+        }
+        uniform.mat3.set(mat3);
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer matBuffer = stack.mallocFloat(9); // 3x3 matrix
+            mat3.get(matBuffer);
+            device().uniformMatrix3fv(uniform.location, false, matBuffer);
+        }
     }
 
 
     public void uploadVec4f(String varName, Vector4f vec) {
-        int varLocation = glGetUniformLocation(shaderProgramID, varName);
-        use(); // make usre to use local shader
-        glUniform4f(varLocation, vec.x, vec.y, vec.z, vec.w);
+        Uniform uniform = uniform(varName);
+        if (uniform != null && uniform.setFloats(vec.x, vec.y, vec.z, vec.w)) {
+            device().uniform4f(uniform.location, vec.x, vec.y, vec.z, vec.w);
+        }
     }
 
     public void uploadVec3f(String varName, Vector4f vec) {
-        int varLocation = glGetUniformLocation(shaderProgramID, varName);
-        use(); // make usre to use local shader
-        glUniform3f(varLocation, vec.x, vec.y, vec.z);
+        Uniform uniform = uniform(varName);
+        if (uniform != null && uniform.setFloats(vec.x, vec.y, vec.z, 0.0f)) {
+            device().uniform3f(uniform.location, vec.x, vec.y, vec.z);
+        }
     }
 
     public void uploadVec2f(String varName, Vector4f vec) {
-        int varLocation = glGetUniformLocation(shaderProgramID, varName);
-        use(); // make usre to use local shader
-        glUniform2f(varLocation, vec.x, vec.y);
+        Uniform uniform = uniform(varName);
+        if (uniform != null && uniform.setFloats(vec.x, vec.y, 0.0f, 0.0f)) {
+            device().uniform2f(uniform.location, vec.x, vec.y);
+        }
     }
 
     public void uploadFloat(String varName, float val) {
-        int varLocation = glGetUniformLocation(shaderProgramID, varName);
-        use();
-        glUniform1f(varLocation, val);
+        Uniform uniform = uniform(varName);
+        if (uniform != null && uniform.setFloats(val, 0.0f, 0.0f, 0.0f)) {
+            device().uniform1f(uniform.location, val);
+        }
     }
 
     public void uploadInt(String varName, int val) {
-        int varLocation = glGetUniformLocation(shaderProgramID, varName);
-        use();
-        glUniform1i(varLocation, val);
+        Uniform uniform = uniform(varName);
+        if (uniform != null && uniform.setInt(val)) {
+            device().uniform1i(uniform.location, val);
+        }
     }
 
     public void uploadTexture(String varName, int slot) {
-        int varLocation = glGetUniformLocation(shaderProgramID, varName);
-        use();
-        glUniform1i(varLocation, slot);
+        uploadInt(varName, slot);
     }
 
     public void uploadIntArray(String varName, int[] array) {
-        int varLocation = glGetUniformLocation(shaderProgramID, varName);
-        use();
-        glUniform1iv(varLocation, array);
+        Uniform uniform = uniform(varName);
+        if (uniform == null || Arrays.equals(uniform.ints, array)) {
+            return;
+        }
+        uniform.ints = array.clone();
+        device().uniform1iv(uniform.location, array);
+    }
+
+    /*
+    * Location of one uniform and the value it was last given. Program keeps uniform values until they are
+    * changed, so upload with the same value can be skipped.
+    * */
+    private static class Uniform {
+        private final int location;
+        private boolean hasValue;
+        private float x, y, z, w; // float and vector uniforms
+        private int intValue; // int and sampler uniforms
+        private int[] ints;
+        private Matrix4f mat4;
+        private Matrix3f mat3;
+
+        private Uniform(int location) {
+            this.location = location;
+        }
+
+        // true if value changed and has to be uploaded
+        private boolean setFloats(float x, float y, float z, float w) {
+            if (hasValue && this.x == x && this.y == y && this.z == z && this.w == w) {
+                return false;
+            }
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.w = w;
+            hasValue = true;
+            return true;
+        }
+
+        private boolean setInt(int value) {
+            if (hasValue && this.intValue == value) {
+                return false;
+            }
+            this.intValue = value;
+            hasValue = true;
+            return true;
+        }
     }
 }
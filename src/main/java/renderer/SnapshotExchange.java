@@ -0,0 +1,45 @@
+package renderer;
+
+/*
+* Double buffer of RenderSnapshot between simulation thread and render thread.
+* Simulation fills its own snapshot without locking and publishes it, render thread takes the latest published one.
+* Neither side waits for the other while working on its snapshot, the lock is held only to swap them.
+* When render thread did not take the previous snapshot yet, new one is appended to it, so no change is lost.
+* */
+public class SnapshotExchange {
+    private RenderSnapshot writing = new RenderSnapshot(); // filled by simulation
+    private RenderSnapshot published = new RenderSnapshot(); // waiting for render thread
+    private RenderSnapshot reading = new RenderSnapshot(); // being applied by render thread
+
+    /*
+    * Snapshot to fill during current simulation tick. Only simulation thread may use it.
+    * */
+    public RenderSnapshot writer() {
+        return writing;
+    }
+
+    /*
+    * Hands snapshot filled during this tick to render thread, simulation gets an empty one for the next tick.
+    * */
+    public synchronized void publish() {
+        if (published.isEmpty()) {
+            RenderSnapshot swap = published;
+            published = writing;
+            writing = swap;
+        } else {
+            published.append(writing);
+            writing.clear();
+        }
+    }
+
+    /*
+    * Takes latest published snapshot, on render thread. It stays valid until next take().
+    * */
+    public synchronized RenderSnapshot take() {
+        reading.clear();
+        RenderSnapshot swap = reading;
+        reading = published;
+        published = swap;
+        return reading;
+    }
+}
@@ -0,0 +1,145 @@
+package renderer;
+
+import components.SpriteRenderer;
+import domo.Transform;
+import util.LongMap;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/*
+* Uniform grid over world space. Every sprite is listed in all cells its transform bounds touch,
+* so sprites near a rectangle can be found without looking at all sprites.
+* Sprite spanning more cells is reported once per cell, callers have to skip duplicates.
+* Cells are keyed by primitive long, queries done every frame neither box keys nor allocate.
+* */
+public class SpatialGrid {
+    private float cellSize;
+    private LongMap<List<SpriteRenderer>> cells;
+    private Map<SpriteRenderer, int[]> cellRanges; // {minCellX, minCellY, maxCellX, maxCellY} sprite is listed in
+    private Map<SpriteRenderer, long[]> placedVersions; // render transform version when cells were last computed
+
+    public SpatialGrid(float cellSize) {
+        this.cellSize = cellSize;
+        this.cells = new LongMap<>();
+        this.cellRanges = new IdentityHashMap<>();
+        this.placedVersions = new IdentityHashMap<>();
+    }
+
+    public void insert(SpriteRenderer spr) {
+        int[] range = new int[4];
+        computeRange(spr.renderTransform(), range);
+        cellRanges.put(spr, range);
+        placedVersions.put(spr, new long[] {spr.renderTransform().version()});
+        addToCells(spr, range);
+    }
+
+    /*
+    * Moves sprite to cells of its current transform, does nothing if it stays in the same cells.
+    * Sprites whose transform did not change at all (only color or texture did) are skipped by version.
+    * */
+    public void update(SpriteRenderer spr) {
+        long[] placedVersion = placedVersions.get(spr);
+        if (placedVersion == null) {
+            return;
+        }
+        Transform t = spr.renderTransform();
+        if (placedVersion[0] == t.version()) {
+            return;
+        }
+        placedVersion[0] = t.version();
+        int[] range = cellRanges.get(spr);
+        float x = t.getX(), y = t.getY();
+        float minX = Math.min(x, x + t.getScaleX());
+        float minY = Math.min(y, y + t.getScaleY());
+        float maxX = Math.max(x, x + t.getScaleX());
+        float maxY = Math.max(y, y + t.getScaleY());
+        if (cell(minX) == range[0] && cell(minY) == range[1] && cell(maxX) == range[2] && cell(maxY) == range[3]) {
+            return;
+        }
+        removeFromCells(spr, range);
+        computeRange(t, range);
+        addToCells(spr, range);
+    }
+
+    public void remove(SpriteRenderer spr) {
+        placedVersions.remove(spr);
+        int[] range = cellRanges.remove(spr);
+        if (range != null) {
+            removeFromCells(spr, range);
+        }
+    }
+
+    /*
+    * Passes sprites from all cells overlapping the rectangle to visitor.
+    * */
+    public void query(float minX, float minY, float maxX, float maxY, Consumer<SpriteRenderer> visitor) {
+        int minCellX = cell(minX);
+        int minCellY = cell(minY);
+        int maxCellX = cell(maxX);
+        int maxCellY = cell(maxY);
+        for (int cx = minCellX; cx <= maxCellX; cx++) {
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                List<SpriteRenderer> sprites = cells.get(key(cx, cy));
+                if (sprites == null) {
+                    continue;
+                }
+                for (int i=0; i< sprites.size(); i++) {
+                    visitor.accept(sprites.get(i));
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return cellRanges.size();
+    }
+
+    private void computeRange(Transform t, int[] range) {
+        float x = t.getX(), y = t.getY();
+        range[0] = cell(Math.min(x, x + t.getScaleX()));
+        range[1] = cell(Math.min(y, y + t.getScaleY()));
+        range[2] = cell(Math.max(x, x + t.getScaleX()));
+        range[3] = cell(Math.max(y, y + t.getScaleY()));
+    }
+
+    private void addToCells(SpriteRenderer spr, int[] range) {
+        for (int cx = range[0]; cx <= range[2]; cx++) {
+            for (int cy = range[1]; cy <= range[3]; cy++) {
+                long key = key(cx, cy);
+                List<SpriteRenderer> sprites = cells.get(key);
+                if (sprites == null) {
+                    sprites = new ArrayList<>();
+                    cells.put(key, sprites);
+                }
+                sprites.add(spr);
+            }
+        }
+    }
+
+    private void removeFromCells(SpriteRenderer spr, int[] range) {
+        for (int cx = range[0]; cx <= range[2]; cx++) {
+            for (int cy = range[1]; cy <= range[3]; cy++) {
+                long key = key(cx, cy);
+                List<SpriteRenderer> sprites = cells.get(key);
+                if (sprites != null) {
+                    sprites.remove(spr);
+                    if (sprites.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private int cell(float coordinate) {
+        return (int)Math.floor(coordinate / cellSize);
+    }
+
+    private long key(int cellX, int cellY) {
+        return ((long)cellX << 32) | (cellY & 0xffffffffL);
+    }
+}
@@ -0,0 +1,31 @@
+package renderer;
+
+/*
+* How vertex data of a batch gets to the GPU every frame.
+* */
+public enum StreamingMode {
+    /*
+    * One vbo overwritten in place with glBufferSubData. Only dirty ranges are uploaded,
+    * but driver may have to wait for draws that still read old data.
+    * */
+    SUB_DATA,
+
+    /*
+    * Vbo storage is orphaned with glBufferData(null) before every upload, driver hands out fresh memory
+    * while older draws keep reading the old one. Whole batch is uploaded each time.
+    * */
+    ORPHAN,
+
+    /*
+    * Vbo is split into 3 segments, every upload goes to the next one. Segment is written through
+    * unsynchronized glMapBufferRange and fences make sure GPU is done reading it. Uses persistent mapping
+    * when GL 4.4 / ARB_buffer_storage is there, falls back to ORPHAN when fences are not available.
+    * */
+    RING,
+
+    /*
+    * For sprites that never move. Vbo is GL_STATIC_DRAW, filled when batch is built and written again only
+    * after explicit invalidate. Batch does not look for dirty sprites in between.
+    * */
+    STATIC
+}
@@ -5,30 +5,24 @@ import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
 
 import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.GL_CLAMP_TO_EDGE;
 import static org.lwjgl.stb.STBImage.*;
+import static renderer.Graphics.device;
 
 public class Texture {
     private String filePath;
     private int texID;
     private int width;
     private int height;
+    private TextureArray array; // not null when this texture is one layer of texture array
+    private int layer;
 
     public Texture(String filePath) {
         this.filePath = filePath;
 
         // Generate texture on GPU:
-        texID = glGenTextures();
-        glBindTexture(GL_TEXTURE_2D, texID);
-
-        // Set texture parameters:
         // Repeat image in both coordinates
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
-
-        // when stretching the image, we want to pixelate: texture min filter, is minimalizing.
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-        // when shrinking the image we also want to pixelate:
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+        generate(GL_REPEAT);
 
         // load the image. need RGB data:, 1, 1 are size
         IntBuffer width    = BufferUtils.createIntBuffer(1);
@@ -44,9 +38,9 @@ public class Texture {
             this.height = height.get(0);
 
             if (channels.get(0) == 3) {
-                glTexImage2D(GL_TEXTURE_2D, 0, GL_RGB, width.get(0), height.get(0),0, GL_RGB, GL_UNSIGNED_BYTE, image);
+                device().texImage2D(GL_TEXTURE_2D, 0, GL_RGB, width.get(0), height.get(0),0, GL_RGB, GL_UNSIGNED_BYTE, image);
             } else if (channels.get(0) == 4) {
-                glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width.get(0), height.get(0),0, GL_RGBA, GL_UNSIGNED_BYTE, image);
+                device().texImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width.get(0), height.get(0),0, GL_RGBA, GL_UNSIGNED_BYTE, image);
             } else {
                 assert false : "Error: (Texture) Unknown number of channels '" + channels.get(0) + "'";
             }
@@ -56,16 +50,74 @@ public class Texture {
         }
   }
 
+    /*
+    * Texture made from pixels already in memory, RGBA 8 bits per channel. Used by TextureAtlas.
+    * Edges are clamped, so neighbour images in atlas are never sampled over the border.
+    * */
+    public Texture(String name, int width, int height, ByteBuffer pixels) {
+        this.filePath = name;
+        this.width = width;
+        this.height = height;
+
+        generate(GL_CLAMP_TO_EDGE);
+        device().texImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+    }
+
+    /*
+    * Texture which is a layer of texture array. It has no GL texture of its own, binding it binds the array.
+    * */
+    public Texture(String filePath, TextureArray array, int layer) {
+        this.filePath = filePath;
+        this.array = array;
+        this.layer = layer;
+        this.width = array.getWidth();
+        this.height = array.getHeight();
+    }
+
+    private void generate(int wrap) {
+        texID = device().genTextures();
+        GLState.bindTexture(GL_TEXTURE_2D, texID);
+
+        // Set texture parameters:
+        device().texParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, wrap);
+        device().texParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, wrap);
+
+        // when stretching the image, we want to pixelate: texture min filter, is minimalizing.
+        device().texParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        // when shrinking the image we also want to pixelate:
+        device().texParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+    }
+
   private void freeImageFromMemory(ByteBuffer image) {
       stbi_image_free(image);
   }
 
   public void bind() {
-      glBindTexture(GL_TEXTURE_2D, texID);
+      if (array != null) {
+          array.bind();
+          return;
+      }
+      GLState.bindTexture(GL_TEXTURE_2D, texID);
   }
 
   public void unbind() {
-      glBindTexture(GL_TEXTURE_2D, 0);
+      if (array != null) {
+          array.unbind();
+          return;
+      }
+      GLState.bindTexture(GL_TEXTURE_2D, 0);
+  }
+
+  public boolean isArrayLayer() {
+        return this.array != null;
+  }
+
+  public TextureArray getArray() {
+        return this.array;
+  }
+
+  public int getLayer() {
+        return this.layer;
   }
 
   public int getWidth() {
@@ -75,4 +127,8 @@ public class Texture {
   public int getHeight() {
         return this.height;
   }
+
+  public String getFilePath() {
+        return this.filePath;
+  }
 }
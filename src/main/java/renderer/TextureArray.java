@@ -0,0 +1,104 @@
+package renderer;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL12.*;
+import static org.lwjgl.opengl.GL30.GL_TEXTURE_2D_ARRAY;
+import static org.lwjgl.stb.STBImage.*;
+import static renderer.Graphics.device;
+
+/*
+* GL_TEXTURE_2D_ARRAY of same-size images, every image is one layer.
+* Batch drawing from texture array binds only this one texture, and picks layer per vertex,
+* so it is not limited by number of texture slots.
+* */
+public class TextureArray {
+    private String name;
+    private int texID;
+    private int width;
+    private int height;
+    private int maxLayers;
+    private int numLayers;
+
+    /*
+    * Allocates space for maxLayers layers of width x height RGBA pixels on GPU.
+    * */
+    public TextureArray(String name, int width, int height, int maxLayers) {
+        // packed vertex layout stores layer + 1 as unsigned short, see VertexLayout.SPRITE_PACKED
+        assert maxLayers < 0xffff : "Error: (TextureArray) '" + name + "' can not have " + maxLayers + " layers";
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.maxLayers = maxLayers;
+        this.numLayers = 0;
+
+        texID = device().genTextures();
+        GLState.bindTexture(GL_TEXTURE_2D_ARRAY, texID);
+
+        device().texParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_S, GL_CLAMP_TO_EDGE);
+        device().texParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_WRAP_T, GL_CLAMP_TO_EDGE);
+        // pixelate same as single textures
+        device().texParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+        device().texParameteri(GL_TEXTURE_2D_ARRAY, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+
+        device().texImage3D(GL_TEXTURE_2D_ARRAY, 0, GL_RGBA8, width, height, maxLayers, 0, GL_RGBA, GL_UNSIGNED_BYTE, (ByteBuffer)null);
+    }
+
+    /*
+    * Loads image into next free layer. Image has to be exactly width x height.
+    * Returns texture which refers to that layer, or null when image could not be added.
+    * */
+    public Texture addLayer(String filePath) {
+        if (numLayers >= maxLayers) {
+            assert false : "Error: (TextureArray) '" + name + "' is full, could not add '" + filePath + "'";
+            return null;
+        }
+
+        IntBuffer imageWidth = BufferUtils.createIntBuffer(1);
+        IntBuffer imageHeight = BufferUtils.createIntBuffer(1);
+        IntBuffer channels = BufferUtils.createIntBuffer(1);
+        stbi_set_flip_vertically_on_load(true);
+        ByteBuffer image = stbi_load(filePath, imageWidth, imageHeight, channels, 4);
+        if (image == null) {
+            assert false : "Error: (TextureArray) Could not load image '" + filePath + "'";
+            return null;
+        }
+        if (imageWidth.get(0) != width || imageHeight.get(0) != height) {
+            stbi_image_free(image);
+            assert false : "Error: (TextureArray) Image '" + filePath + "' is not " + width + "x" + height;
+            return null;
+        }
+
+        int layer = numLayers;
+        GLState.bindTexture(GL_TEXTURE_2D_ARRAY, texID);
+        device().texSubImage3D(GL_TEXTURE_2D_ARRAY, 0, 0, 0, layer, width, height, 1, GL_RGBA, GL_UNSIGNED_BYTE, image);
+        stbi_image_free(image);
+        numLayers++;
+
+        return new Texture(filePath, this, layer);
+    }
+
+    public void bind() {
+        GLState.bindTexture(GL_TEXTURE_2D_ARRAY, texID);
+    }
+
+    public void unbind() {
+        GLState.bindTexture(GL_TEXTURE_2D_ARRAY, 0);
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public boolean hasRoom() {
+        return numLayers < maxLayers;
+    }
+}
@@ -0,0 +1,102 @@
+package renderer;
+
+import components.Sprite;
+import org.joml.Vector2f;
+import org.lwjgl.BufferUtils;
+import util.SkylinePacker;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+* One page of packed images, uploaded as a single texture.
+* Every image gets PADDING pixels of border made of copies of its edge pixels (bleed),
+* so GL_NEAREST sampling at the very edge of a sprite never picks a neighbour's pixel.
+* */
+public class TextureAtlas {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    public static final int PADDING = 2;
+    // -----------------------------------------------------------------------
+
+    private String name;
+    private int size;
+    private SkylinePacker packer;
+    private ByteBuffer pixels; // RGBA, row 0 is bottom of texture, same as images loaded with flip
+    private Map<String, int[]> regions; // {x, y, width, height} of image without padding
+    private Map<String, Sprite> sprites;
+    private Texture texture;
+
+    public TextureAtlas(String name, int size) {
+        this.name = name;
+        this.size = size;
+        this.packer = new SkylinePacker(size, size);
+        this.pixels = BufferUtils.createByteBuffer(size * size * 4);
+        this.regions = new HashMap<>();
+        this.sprites = new HashMap<>();
+    }
+
+    /*
+    * Copies RGBA image into atlas. Returns false when there is no space left on this page.
+    * */
+    public boolean add(String imageName, ByteBuffer image, int width, int height) {
+        assert texture == null : "Error: (TextureAtlas) Image added after atlas '" + name + "' was built";
+        int[] position = packer.insert(width + 2 * PADDING, height + 2 * PADDING);
+        if (position == null) {
+            return false;
+        }
+        int x = position[0] + PADDING;
+        int y = position[1] + PADDING;
+
+        // copy image with its edges extruded PADDING pixels out in every direction
+        for (int row = -PADDING; row < height + PADDING; row++) {
+            int srcRow = Math.max(0, Math.min(height - 1, row));
+            for (int col = -PADDING; col < width + PADDING; col++) {
+                int srcCol = Math.max(0, Math.min(width - 1, col));
+                int src = (srcRow * width + srcCol) * 4;
+                int dst = ((y + row) * size + (x + col)) * 4;
+                pixels.putInt(dst, image.getInt(src));
+            }
+        }
+
+        regions.put(imageName, new int[]{x, y, width, height});
+        return true;
+    }
+
+    /*
+    * Uploads packed pixels to GPU and creates sprites with texture coords remapped into the atlas.
+    * */
+    public Texture build() {
+        texture = new Texture(name, size, size, pixels);
+        pixels = null; // not needed on CPU anymore
+
+        for (Map.Entry<String, int[]> entry : regions.entrySet()) {
+            int[] r = entry.getValue();
+            float leftX = r[0] / (float)size;
+            float rightX = (r[0] + r[2]) / (float)size;
+            float bottomY = r[1] / (float)size;
+            float topY = (r[1] + r[3]) / (float)size;
+
+            Vector2f[] texCoords = {
+                    new Vector2f(rightX, topY),
+                    new Vector2f(rightX, bottomY),
+                    new Vector2f(leftX, bottomY),
+                    new Vector2f(leftX, topY)
+            };
+            sprites.put(entry.getKey(), new Sprite(texture, texCoords));
+        }
+        return texture;
+    }
+
+    public Sprite getSprite(String imageName) {
+        return sprites.get(imageName);
+    }
+
+    public boolean contains(String imageName) {
+        return regions.containsKey(imageName);
+    }
+
+    public Texture getTexture() {
+        return this.texture;
+    }
+}
@@ -0,0 +1,86 @@
+package renderer;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/*
+* One attribute of a vertex, like position or color. Knows how its components are stored in vertex buffer.
+* */
+public class VertexAttribute {
+    private int location;   // layout (location=...) in shader
+    private int size;       // number of components, 2 for vec2
+    private int type;       // GL_FLOAT, GL_UNSIGNED_BYTE, GL_UNSIGNED_SHORT
+    private boolean normalized; // unsigned integers mapped to 0..1 in shader
+    private boolean integer;    // passed to shader as int, through glVertexAttribIPointer
+    private int offset;         // bytes from the beggining of vertex
+
+    public VertexAttribute(int location, int size, int type, boolean normalized, boolean integer, int offset) {
+        this.location = location;
+        this.size = size;
+        this.type = type;
+        this.normalized = normalized;
+        this.integer = integer;
+        this.offset = offset;
+    }
+
+    /*
+    * Writes one component of this attribute for vertex that starts at vertexOffset bytes.
+    * Normalized values are expected in 0..1 range.
+    * */
+    public void put(ByteBuffer buffer, int vertexOffset, int component, float value) {
+        int index = vertexOffset + offset + component * componentBytes(type);
+        switch (type) {
+            case GL_FLOAT:
+                buffer.putFloat(index, value);
+                break;
+            case GL_UNSIGNED_BYTE:
+                buffer.put(index, (byte)(normalized ? Math.round(clamp(value) * 255.0f) : (int)value));
+                break;
+            case GL_UNSIGNED_SHORT:
+                buffer.putShort(index, (short)(normalized ? Math.round(clamp(value) * 65535.0f) : (int)value));
+                break;
+            default:
+                assert false : "Error: (VertexAttribute) Unsupported type '" + type + "'";
+        }
+    }
+
+    private float clamp(float value) {
+        return Math.max(0.0f, Math.min(1.0f, value));
+    }
+
+    public static int componentBytes(int type) {
+        switch (type) {
+            case GL_UNSIGNED_BYTE:
+                return 1;
+            case GL_UNSIGNED_SHORT:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+    public int getLocation() {
+        return this.location;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public int getType() {
+        return this.type;
+    }
+
+    public boolean isNormalized() {
+        return this.normalized;
+    }
+
+    public boolean isInteger() {
+        return this.integer;
+    }
+
+    public int getOffset() {
+        return this.offset;
+    }
+}
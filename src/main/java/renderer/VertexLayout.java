@@ -0,0 +1,124 @@
+package renderer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL11.*;
+import static renderer.Graphics.device;
+
+/*
+* Describes how one vertex (or one instance) is laid out in vertex buffer.
+* Batches write vertices and set attribute pointers only through the layout, so all formats share the same code.
+* */
+public class VertexLayout {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    /*
+    * Sprite vertex, 36 bytes:
+    *
+    * Pos                   Color                           tex coords          tex id
+    * float, float,         float, float, float, float      float, float        float
+    * */
+    public static final VertexLayout SPRITE_FLOAT = new VertexLayout(null)
+            .add(0, 2, GL_FLOAT, false, false)
+            .add(1, 4, GL_FLOAT, false, false)
+            .add(2, 2, GL_FLOAT, false, false)
+            .add(3, 1, GL_FLOAT, false, false);
+
+    /*
+    * Sprite vertex, 20 bytes:
+    *
+    * Pos                   Color (0..255 -> 0..1)          tex coords (0..65535 -> 0..1)     tex id (int)  padding
+    * float, float,         ubyte, ubyte, ubyte, ubyte      ushort, ushort                    ushort        2 bytes
+    *
+    * Tex id is ushort, not ubyte: with texture array it is layer + 1, and arrays can have more than 255 layers.
+    *
+    * That is 44% less than SPRITE_FLOAT, not half. Position, color and tex coords alone take 16 bytes, so any
+    * tex id that holds more than 255 layers makes at least 18. An 18 byte stride puts position floats of every
+    * other vertex off 4 byte alignment, which vertex fetch handles slowly or not at all on some drivers, so tex id
+    * is padded to the next 4 bytes. Squeezing it into bits of tex coords would cost them precision on big atlases.
+    * */
+    public static final VertexLayout SPRITE_PACKED = new VertexLayout("PACKED")
+            .add(0, 2, GL_FLOAT, false, false)
+            .add(1, 4, GL_UNSIGNED_BYTE, true, false)
+            .add(2, 2, GL_UNSIGNED_SHORT, true, false)
+            .add(3, 1, GL_UNSIGNED_SHORT, false, true)
+            .pad(2);
+
+    /*
+    * One instance of InstancedRenderBatch, 52 bytes:
+    *
+    * Pos               Scale           uv rect (min, max)              Color                           tex id
+    * float, float,     float, float    float, float, float, float      float, float, float, float      float
+    * */
+    public static final VertexLayout SPRITE_INSTANCE = new VertexLayout(null)
+            .add(1, 2, GL_FLOAT, false, false)
+            .add(2, 2, GL_FLOAT, false, false)
+            .add(3, 4, GL_FLOAT, false, false)
+            .add(4, 4, GL_FLOAT, false, false)
+            .add(5, 1, GL_FLOAT, false, false);
+    // -----------------------------------------------------------------------
+
+    private List<VertexAttribute> attributes;
+    private int stride; // size of one vertex in bytes
+    private String shaderDefine; // #define added to shader that reads this layout, null if none needed
+
+    public VertexLayout(String shaderDefine) {
+        this.attributes = new ArrayList<>();
+        this.stride = 0;
+        this.shaderDefine = shaderDefine;
+    }
+
+    /*
+    * Appends attribute right after previous one.
+    * */
+    public VertexLayout add(int location, int size, int type, boolean normalized, boolean integer) {
+        attributes.add(new VertexAttribute(location, size, type, normalized, integer, stride));
+        stride += size * VertexAttribute.componentBytes(type);
+        return this;
+    }
+
+    /*
+    * Appends unused bytes, keeps vertices aligned to 4 bytes.
+    * */
+    public VertexLayout pad(int bytes) {
+        stride += bytes;
+        return this;
+    }
+
+    /*
+    * Points attributes of currently bound vao to currently bound vbo, starting at baseOffset bytes.
+    * */
+    public void pointAttributes(long baseOffset) {
+        for (VertexAttribute attr : attributes) {
+            if (attr.isInteger()) {
+                device().vertexAttribIPointer(attr.getLocation(), attr.getSize(), attr.getType(), stride, baseOffset + attr.getOffset());
+            } else {
+                device().vertexAttribPointer(attr.getLocation(), attr.getSize(), attr.getType(), attr.isNormalized(), stride, baseOffset + attr.getOffset());
+            }
+        }
+    }
+
+    /*
+    * Enables all attributes. Divisor 1 makes attributes advance once per instance instead of once per vertex.
+    * */
+    public void enableAttributes(int divisor) {
+        for (VertexAttribute attr : attributes) {
+            device().enableVertexAttribArray(attr.getLocation());
+            if (divisor != 0) {
+                device().vertexAttribDivisor(attr.getLocation(), divisor);
+            }
+        }
+    }
+
+    public VertexAttribute get(int index) {
+        return attributes.get(index);
+    }
+
+    public int getStride() {
+        return this.stride;
+    }
+
+    public String getShaderDefine() {
+        return this.shaderDefine;
+    }
+}
@@ -0,0 +1,205 @@
+package renderer;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.GL_MAP_COHERENT_BIT;
+import static org.lwjgl.opengl.GL44.GL_MAP_PERSISTENT_BIT;
+import static org.lwjgl.system.MemoryUtil.memAddress;
+import static org.lwjgl.system.MemoryUtil.memCopy;
+import static renderer.Graphics.device;
+
+/*
+* Vertex buffer of a single batch. Hides the way vertices are streamed to GPU, see StreamingMode.
+* */
+public class VertexStream {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private final int RING_SEGMENTS = 3;
+    private final long FENCE_TIMEOUT_NS = 1_000_000; // wait in 1 ms steps until GPU is done with segment
+    // -----------------------------------------------------------------------
+
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private StreamingMode mode;
+    private int vboID;
+    private int segmentBytes; // size of one copy of batch vertices
+    private int vertexSizeBytes;
+
+    // ring mode:
+    private int segment; // segment which holds the newest vertices, the one we draw from
+    private long[] fences;
+    private boolean persistent;
+    private ByteBuffer mappedBuffer;
+    // -----------------------------------------------------------------------
+
+    public VertexStream(StreamingMode mode, int segmentBytes, int vertexSizeBytes) {
+        this.mode = mode;
+        this.segmentBytes = segmentBytes;
+        this.vertexSizeBytes = vertexSizeBytes;
+    }
+
+    /*
+    * Allocates vbo and binds it to GL_ARRAY_BUFFER, so vertex attribute pointers can be set up right after.
+    * Has to be called with GL context current.
+    * */
+    public void start() {
+        if (mode == StreamingMode.RING && !device().supportsFences()) {
+            // no fences, we cannot know when GPU is done reading segment.
+            System.out.println("RING streaming needs GL 3.2 fences, falling back to ORPHAN.");
+            mode = StreamingMode.ORPHAN;
+        }
+
+        vboID = device().genBuffers();
+        GLState.bindArrayBuffer(vboID);
+
+        if (mode == StreamingMode.RING) {
+            long ringBytes = (long)segmentBytes * RING_SEGMENTS;
+            fences = new long[RING_SEGMENTS];
+            persistent = device().supportsBufferStorage();
+            if (persistent) {
+                // mapped once for the whole life of the batch.
+                int flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+                device().bufferStorage(GL_ARRAY_BUFFER, ringBytes, flags);
+                mappedBuffer = device().mapBufferRange(GL_ARRAY_BUFFER, 0, ringBytes, flags, null);
+            } else {
+                device().bufferData(GL_ARRAY_BUFFER, ringBytes, GL_STREAM_DRAW);
+            }
+        } else {
+            int usage = GL_DYNAMIC_DRAW;
+            if (mode == StreamingMode.ORPHAN) {
+                usage = GL_STREAM_DRAW;
+            } else if (mode == StreamingMode.STATIC) {
+                usage = GL_STATIC_DRAW;
+            }
+            device().bufferData(GL_ARRAY_BUFFER, segmentBytes, usage);
+        }
+    }
+
+    public void bind() {
+        GLState.bindArrayBuffer(vboID);
+    }
+
+    /*
+    * True if parts of the buffer can be updated, otherwise upload() has to get all used vertices starting from 0.
+    * */
+    public boolean supportsPartialUpload() {
+        return mode == StreamingMode.SUB_DATA || mode == StreamingMode.STATIC;
+    }
+
+    /*
+    * Uploads byteCount bytes of vertex data, starting from firstByte. Buffer position and limit are left untouched.
+    * */
+    public void upload(ByteBuffer vertexData, int firstByte, int byteCount) {
+        GLState.bindArrayBuffer(vboID);
+        switch (mode) {
+            case SUB_DATA:
+            case STATIC:
+                subData(vertexData, firstByte, byteCount);
+                break;
+            case ORPHAN:
+                // give old storage back to driver, draws which still use it are not blocked.
+                device().bufferData(GL_ARRAY_BUFFER, segmentBytes, GL_STREAM_DRAW);
+                subData(vertexData, firstByte, byteCount);
+                break;
+            case RING:
+                writeNextSegment(vertexData, firstByte, byteCount);
+                break;
+        }
+    }
+
+    private void subData(ByteBuffer vertexData, int firstByte, int byteCount) {
+        ByteBuffer range = vertexData.slice(firstByte, byteCount);
+        device().bufferSubData(GL_ARRAY_BUFFER, firstByte, range);
+    }
+
+    private void writeNextSegment(ByteBuffer vertexData, int firstByte, int byteCount) {
+        segment = (segment + 1) % RING_SEGMENTS;
+        waitForSegment(segment);
+
+        long segmentStart = (long)segment * segmentBytes;
+        if (persistent) {
+            memCopy(memAddress(vertexData, firstByte), memAddress(mappedBuffer) + segmentStart + firstByte, byteCount);
+        } else {
+            // unsynchronized: fence already told us that GPU does not read this segment anymore.
+            int flags = GL_MAP_WRITE_BIT | GL_MAP_UNSYNCHRONIZED_BIT | GL_MAP_INVALIDATE_RANGE_BIT;
+            mappedBuffer = device().mapBufferRange(GL_ARRAY_BUFFER, segmentStart + firstByte, byteCount, flags, mappedBuffer);
+            memCopy(memAddress(vertexData, firstByte), memAddress(mappedBuffer), byteCount);
+            device().unmapBuffer(GL_ARRAY_BUFFER);
+        }
+    }
+
+    private void waitForSegment(int index) {
+        long fence = fences[index];
+        if (fence == 0) {
+            return;
+        }
+        int result = device().clientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_TIMEOUT_NS);
+        while (result == GL_TIMEOUT_EXPIRED) {
+            result = device().clientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, FENCE_TIMEOUT_NS);
+        }
+        assert result != GL_WAIT_FAILED : "Error: (VertexStream) waiting for fence failed";
+        device().deleteSync(fence);
+        fences[index] = 0;
+    }
+
+    /*
+    * Has to be called after every draw which reads from this stream.
+    * Marks point in GPU command stream after which current segment can be written again.
+    * */
+    public void endDraw() {
+        if (mode != StreamingMode.RING) {
+            return;
+        }
+        if (fences[segment] != 0) {
+            device().deleteSync(fences[segment]);
+        }
+        fences[segment] = device().fenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    /*
+    * Frees vbo, and fences and mapping of ring buffer.
+    * */
+    public void destroy() {
+        if (fences != null) {
+            for (int i=0; i< fences.length; i++) {
+                if (fences[i] != 0) {
+                    device().deleteSync(fences[i]);
+                    fences[i] = 0;
+                }
+            }
+        }
+        if (persistent) {
+            GLState.bindArrayBuffer(vboID);
+            device().unmapBuffer(GL_ARRAY_BUFFER);
+            mappedBuffer = null;
+        }
+        device().deleteBuffers(vboID);
+        GLState.bufferDeleted(vboID);
+    }
+
+    /*
+    * Index of first vertex of the segment to draw from, to be passed as base vertex of draw call.
+    * */
+    public int baseVertex() {
+        if (mode != StreamingMode.RING) {
+            return 0;
+        }
+        return segment * segmentBytes / vertexSizeBytes;
+    }
+
+    /*
+    * Byte offset of the segment to draw from. For per-instance attributes which have no base vertex,
+    * their attribute pointers have to be moved to this offset instead.
+    * */
+    public long baseOffsetBytes() {
+        if (mode != StreamingMode.RING) {
+            return 0;
+        }
+        return (long)segment * segmentBytes;
+    }
+
+    public StreamingMode getMode() {
+        return this.mode;
+    }
+}
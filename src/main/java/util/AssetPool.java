@@ -2,20 +2,37 @@ package util;
 
 import components.Sprite;
 import components.SpriteSheet;
+import org.lwjgl.BufferUtils;
 import renderer.Shader;
 import renderer.Texture;
+import renderer.TextureArray;
+import renderer.TextureAtlas;
 
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import static org.lwjgl.opengl.GL11.GL_MAX_TEXTURE_SIZE;
+import static org.lwjgl.stb.STBImage.*;
+import static renderer.Graphics.device;
 
 public class AssetPool {
     // ----------------- Maps with resources : ------------------------
     private static Map<String, Shader> shaders = new HashMap<>();
     private static Map<String, Texture> textures = new HashMap<>();
     private static Map<String, SpriteSheet> spriteSheets = new HashMap<>();
+    private static Set<String> atlasImages = new LinkedHashSet<>(); // images waiting for buildAtlases()
+    private static List<TextureAtlas> atlases = new ArrayList<>();
+    private static Map<String, TextureArray> textureArrays = new HashMap<>();
 
     // ----------------------------------------------------------------
+    private static final int ATLAS_SIZE = 2048;
 
     /*
     * returns shader if we already have it in shaders map,
@@ -23,13 +40,27 @@ public class AssetPool {
     * and then return it.
     * */
     public static Shader getShader(String resourceName) {
+        return getShader(resourceName, new String[0]);
+    }
+
+    /*
+    * same shader file compiled with different defines is a different shader,
+    * so defines are part of the key.
+    * */
+    public static Shader getShader(String resourceName, String... defines) {
         File file = new File(resourceName);
-        if(AssetPool.shaders.containsKey(file.getAbsolutePath())) {
-            return AssetPool.shaders.get(file.getAbsolutePath());
+        String key = file.getAbsolutePath();
+        for (String define : defines) {
+            if (define != null) {
+                key += "#" + define;
+            }
+        }
+        if(AssetPool.shaders.containsKey(key)) {
+            return AssetPool.shaders.get(key);
         } else {
-            Shader shader = new Shader(resourceName);
+            Shader shader = new Shader(resourceName, defines);
             shader.compile();
-            AssetPool.shaders.put(file.getAbsolutePath(), shader);
+            AssetPool.shaders.put(key, shader);
             return shader;
         }
     }
@@ -45,6 +76,39 @@ public class AssetPool {
         }
     }
     
+    /*
+    * returns texture array with given name, creating it with space for maxLayers images of width x height,
+    * if it does not exist yet.
+    * */
+    public static TextureArray getTextureArray(String arrayName, int width, int height, int maxLayers) {
+        if (!AssetPool.textureArrays.containsKey(arrayName)) {
+            AssetPool.textureArrays.put(arrayName, new TextureArray(arrayName, width, height, maxLayers));
+        }
+        return AssetPool.textureArrays.get(arrayName);
+    }
+
+    /*
+    * returns texture that is a layer of texture array, image is uploaded into the array on first request.
+    * Array has to be created with getTextureArray(name, width, height, maxLayers) first.
+    * */
+    public static Texture getArrayTexture(String arrayName, String resourceName) {
+        File file = new File(resourceName);
+        String key = arrayName + "#" + file.getAbsolutePath();
+        if (AssetPool.textures.containsKey(key)) {
+            return AssetPool.textures.get(key);
+        }
+        TextureArray array = AssetPool.textureArrays.get(arrayName);
+        if (array == null) {
+            assert false : "Error: Tried to access texture array that has not been created: " + arrayName;
+            return null;
+        }
+        Texture texture = array.addLayer(resourceName);
+        if (texture != null) {
+            AssetPool.textures.put(key, texture);
+        }
+        return texture;
+    }
+
     public static void addSpriteSheet(String resourceName, SpriteSheet spriteSheet) {
          File file = new File(resourceName);
          // if we don't have this file, then add it:
@@ -61,4 +125,114 @@ public class AssetPool {
          }
         return AssetPool.spriteSheets.getOrDefault(file.getAbsolutePath(), null);
     }
+
+    /*
+    * Registers image to be packed into shared atlas texture on next buildAtlases().
+    * */
+    public static void addToAtlas(String resourceName) {
+        File file = new File(resourceName);
+        if (getAtlasFor(file.getAbsolutePath()) == null) {
+            AssetPool.atlasImages.add(file.getAbsolutePath());
+        }
+    }
+
+    /*
+    * Packs all registered images into as few atlas pages as possible.
+    * Taller images go first, skyline packing leaves less empty space that way.
+    * */
+    public static void buildAtlases() {
+        if (atlasImages.isEmpty()) {
+            return;
+        }
+        int maxPageSize = Math.min(ATLAS_SIZE, device().getInteger(GL_MAX_TEXTURE_SIZE));
+
+        List<String> names = new ArrayList<>();
+        List<ByteBuffer> images = new ArrayList<>();
+        List<int[]> sizes = new ArrayList<>();
+        for (String path : atlasImages) {
+            IntBuffer width = BufferUtils.createIntBuffer(1);
+            IntBuffer height = BufferUtils.createIntBuffer(1);
+            IntBuffer channels = BufferUtils.createIntBuffer(1);
+            stbi_set_flip_vertically_on_load(true);
+            // always 4 channels, atlas is RGBA
+            ByteBuffer image = stbi_load(path, width, height, channels, 4);
+            if (image == null) {
+                assert false : "Error: (AssetPool) Could not load image for atlas '" + path + "'";
+                continue;
+            }
+            names.add(path);
+            images.add(image);
+            sizes.add(new int[]{width.get(0), height.get(0)});
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i=0; i< names.size(); i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> Integer.compare(sizes.get(b)[1], sizes.get(a)[1]));
+
+        // pages are only as big as needed, smallest power of two that has area for all images and some slack
+        long area = 0;
+        for (int[] size : sizes) {
+            area += (long)(size[0] + 2 * TextureAtlas.PADDING) * (size[1] + 2 * TextureAtlas.PADDING);
+        }
+        int pageSize = 256;
+        while (pageSize < maxPageSize && (long)pageSize * pageSize < area * 5 / 4) {
+            pageSize *= 2;
+        }
+
+        List<TextureAtlas> pages = new ArrayList<>();
+        for (int i : order) {
+            int[] size = sizes.get(i);
+            boolean added = false;
+            for (TextureAtlas page : pages) {
+                if (page.add(names.get(i), images.get(i), size[0], size[1])) {
+                    added = true;
+                    break;
+                }
+            }
+            if (!added) {
+                TextureAtlas page = new TextureAtlas("atlas-" + (atlases.size() + pages.size()), pageSize);
+                if (size[0] + 2 * TextureAtlas.PADDING > pageSize || size[1] + 2 * TextureAtlas.PADDING > pageSize) {
+                    page = new TextureAtlas("atlas-" + (atlases.size() + pages.size()), maxPageSize);
+                }
+                if (page.add(names.get(i), images.get(i), size[0], size[1])) {
+                    pages.add(page);
+                } else {
+                    // bigger than whole page, it stays a texture of its own
+                    System.out.println("Image does not fit into atlas page: " + names.get(i));
+                }
+            }
+            stbi_image_free(images.get(i));
+        }
+
+        for (TextureAtlas page : pages) {
+            page.build();
+            atlases.add(page);
+        }
+        atlasImages.clear();
+    }
+
+    /*
+    * Sprite covering whole image inside atlas texture.
+    * Images that were never packed get their own texture, same as getTexture().
+    * */
+    public static Sprite getAtlasSprite(String resourceName) {
+        File file = new File(resourceName);
+        TextureAtlas atlas = getAtlasFor(file.getAbsolutePath());
+        if (atlas == null) {
+            assert !atlasImages.contains(file.getAbsolutePath()) : "Error: Atlas sprite requested before buildAtlases(): " + resourceName;
+            return new Sprite(getTexture(resourceName));
+        }
+        return atlas.getSprite(file.getAbsolutePath());
+    }
+
+    private static TextureAtlas getAtlasFor(String absolutePath) {
+        for (TextureAtlas atlas : atlases) {
+            if (atlas.contains(absolutePath)) {
+                return atlas;
+            }
+        }
+        return null;
+    }
 }
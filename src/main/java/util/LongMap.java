@@ -0,0 +1,111 @@
+package util;
+
+import java.util.Arrays;
+
+/*
+* Hash map with primitive long keys, open addressing with linear probing.
+* Lookups do not box keys and do not allocate, unlike HashMap<Long, V>. Null values are not allowed, get() returns
+* null for missing key. Removal shifts following entries back, so there are no tombstones to clean up.
+* */
+public class LongMap<V> {
+    // ------------------------ STATIC PROPERTIES ----------------------------
+    private static final int INITIAL_CAPACITY = 64; // power of two
+    // -----------------------------------------------------------------------
+    // ------------------------ DYNAMIC PROPERTIES ----------------------------
+    private long[] keys;
+    private Object[] values; // null marks free slot
+    private int mask;
+    private int shift; // 64 - log2(capacity), top bits of hashed key pick the slot
+    private int size;
+    // -----------------------------------------------------------------------
+
+    public LongMap() {
+        keys = new long[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+        mask = INITIAL_CAPACITY - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(INITIAL_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V)values[i];
+            }
+        }
+        return null;
+    }
+
+    public void put(long key, V value) {
+        assert value != null : "Error: (LongMap) null values are not allowed";
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    public void remove(long key) {
+        int i = slot(key);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null) {
+            return;
+        }
+        size--;
+        // move back entries that probed past the freed slot
+        int free = i;
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            // entry at j can move to free slot if its home is not within (free, j]
+            if (((j - home) & mask) >= ((j - free) & mask)) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                free = j;
+            }
+        }
+        values[free] = null;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        mask = keys.length - 1;
+        shift--;
+        for (int i=0; i< oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        // Fibonacci hashing, spreads grid keys which differ only in low bits of either half
+        return (int)((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+}
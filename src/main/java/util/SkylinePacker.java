@@ -0,0 +1,127 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+* Packs rectangles into a fixed size area using skyline bottom-left algorithm.
+* Skyline is the top edge of everything placed so far, kept as list of horizontal segments from left to right.
+* New rectangle goes where its top ends up lowest, on ties where it wastes least width.
+* */
+public class SkylinePacker {
+    private int width;
+    private int height;
+    // segments of skyline: {x, y, width}
+    private List<int[]> skyline;
+
+    public SkylinePacker(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.skyline = new ArrayList<>();
+        this.skyline.add(new int[]{0, 0, width});
+    }
+
+    /*
+    * Returns {x, y} of bottom-left corner where rectangle was placed, or null if it does not fit.
+    * */
+    public int[] insert(int rectWidth, int rectHeight) {
+        int bestIndex = -1;
+        int bestY = Integer.MAX_VALUE;
+        int bestWaste = Integer.MAX_VALUE;
+
+        for (int i=0; i< skyline.size(); i++) {
+            int y = fitAt(i, rectWidth, rectHeight);
+            if (y < 0) {
+                continue;
+            }
+            int waste = wasteAt(i, rectWidth, y);
+            if (y < bestY || (y == bestY && waste < bestWaste)) {
+                bestIndex = i;
+                bestY = y;
+                bestWaste = waste;
+            }
+        }
+
+        if (bestIndex < 0) {
+            return null;
+        }
+        int x = skyline.get(bestIndex)[0];
+        addSegment(bestIndex, x, bestY + rectHeight, rectWidth);
+        return new int[]{x, bestY};
+    }
+
+    /*
+    * y at which rectangle can rest if its left edge starts at segment index, -1 if it does not fit there.
+    * */
+    private int fitAt(int index, int rectWidth, int rectHeight) {
+        int x = skyline.get(index)[0];
+        if (x + rectWidth > width) {
+            return -1;
+        }
+        int widthLeft = rectWidth;
+        int y = 0;
+        int i = index;
+        while (widthLeft > 0) {
+            int[] segment = skyline.get(i);
+            y = Math.max(y, segment[1]);
+            if (y + rectHeight > height) {
+                return -1;
+            }
+            widthLeft -= segment[2];
+            i++;
+        }
+        return y;
+    }
+
+    /*
+    * area under rectangle that would be left empty, between rectangle and skyline.
+    * */
+    private int wasteAt(int index, int rectWidth, int y) {
+        int waste = 0;
+        int widthLeft = rectWidth;
+        int i = index;
+        while (widthLeft > 0) {
+            int[] segment = skyline.get(i);
+            int covered = Math.min(widthLeft, segment[2]);
+            waste += covered * (y - segment[1]);
+            widthLeft -= covered;
+            i++;
+        }
+        return waste;
+    }
+
+    /*
+    * Puts new segment on the skyline, and shrinks or removes segments hidden under it.
+    * */
+    private void addSegment(int index, int x, int y, int segmentWidth) {
+        skyline.add(index, new int[]{x, y, segmentWidth});
+
+        int right = x + segmentWidth;
+        int i = index + 1;
+        while (i < skyline.size()) {
+            int[] segment = skyline.get(i);
+            if (segment[0] >= right) {
+                break;
+            }
+            int shrink = right - segment[0];
+            segment[0] += shrink;
+            segment[2] -= shrink;
+            if (segment[2] <= 0) {
+                skyline.remove(i);
+            } else {
+                break;
+            }
+        }
+
+        // merge neighbours at the same height
+        for (int j=0; j< skyline.size() - 1; j++) {
+            int[] current = skyline.get(j);
+            int[] next = skyline.get(j + 1);
+            if (current[1] == next[1]) {
+                current[2] += next[2];
+                skyline.remove(j + 1);
+                j--;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package domo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComponentLookupTest {
+    interface Solid {}
+
+    interface Platform extends Solid {}
+
+    static class Body extends Component implements Solid {
+        @Override
+        public void update(float dt) {
+        }
+    }
+
+    static class MovingPlatform extends Body implements Platform {
+    }
+
+    static class Marker extends Component {
+        @Override
+        public void update(float dt) {
+        }
+    }
+
+    @Test
+    void findsComponentBySuperclass() {
+        GameObject go = new GameObject("test");
+        MovingPlatform platform = new MovingPlatform();
+        go.addComponent(platform);
+        assertSame(platform, go.getComponent(Body.class));
+        assertSame(platform, go.getComponent(Component.class));
+        assertNull(go.getComponent(Marker.class));
+    }
+
+    @Test
+    void findsComponentByInterfaceAndSuperinterface() {
+        GameObject go = new GameObject("test");
+        go.addComponent(new Marker());
+        MovingPlatform platform = new MovingPlatform();
+        go.addComponent(platform);
+        assertSame(platform, go.getComponent(Platform.class));
+        assertSame(platform, go.getComponent(Solid.class));
+        assertSame(platform, go.handle(Solid.class).get());
+
+        go.removeComponent(MovingPlatform.class);
+        assertNull(go.getComponent(Solid.class));
+        assertNull(go.handle(Platform.class).get());
+    }
+}
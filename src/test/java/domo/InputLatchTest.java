@@ -0,0 +1,43 @@
+package domo;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.lwjgl.glfw.GLFW.*;
+
+class InputLatchTest {
+    @Test
+    void keyTappedBetweenTicksIsPressedForOneTick() {
+        KeyListener.beginFrame();
+        KeyListener.keyCallback(0, GLFW_KEY_SPACE, 0, GLFW_PRESS, 0);
+        KeyListener.keyCallback(0, GLFW_KEY_SPACE, 0, GLFW_RELEASE, 0);
+
+        KeyListener.beginFrame();
+        assertTrue(KeyListener.isKeyPressed(GLFW_KEY_SPACE));
+        KeyListener.beginFrame();
+        assertFalse(KeyListener.isKeyPressed(GLFW_KEY_SPACE));
+    }
+
+    @Test
+    void heldKeyStaysPressed() {
+        KeyListener.keyCallback(0, GLFW_KEY_A, 0, GLFW_PRESS, 0);
+        KeyListener.beginFrame();
+        KeyListener.beginFrame();
+        assertTrue(KeyListener.isKeyPressed(GLFW_KEY_A));
+        KeyListener.keyCallback(0, GLFW_KEY_A, 0, GLFW_RELEASE, 0);
+        KeyListener.beginFrame();
+        assertFalse(KeyListener.isKeyPressed(GLFW_KEY_A));
+    }
+
+    @Test
+    void clickBetweenTicksIsDownForOneTick() {
+        MouseListener.beginFrame();
+        MouseListener.mouseButtonCallback(0, GLFW_MOUSE_BUTTON_LEFT, GLFW_PRESS, 0);
+        MouseListener.mouseButtonCallback(0, GLFW_MOUSE_BUTTON_LEFT, GLFW_RELEASE, 0);
+
+        MouseListener.beginFrame();
+        assertTrue(MouseListener.mouseButtonDown(GLFW_MOUSE_BUTTON_LEFT));
+        MouseListener.beginFrame();
+        assertFalse(MouseListener.mouseButtonDown(GLFW_MOUSE_BUTTON_LEFT));
+    }
+}
@@ -0,0 +1,234 @@
+package renderer;
+
+import components.Sprite;
+import components.SpriteRenderer;
+import domo.Camera;
+import domo.GameObject;
+import domo.Prefab;
+import domo.Scene;
+import domo.Transform;
+import org.joml.Vector2f;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.BufferUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+* Renderer and whole scene on HeadlessDevice: nothing is drawn, draw calls and uploads are counted.
+* */
+class RendererHeadlessTest {
+    private static final float SPRITE_SIZE = 32.0f;
+
+    private HeadlessDevice device;
+    private Camera camera;
+
+    @BeforeEach
+    void setUp() {
+        device = new HeadlessDevice();
+        Graphics.setDevice(device);
+        camera = new Camera(new Vector2f(0, 0));
+    }
+
+    private static Texture texture(String name) {
+        return new Texture(name, 4, 4, BufferUtils.createByteBuffer(4 * 4 * 4));
+    }
+
+    private static GameObject gameObject(float x, float y, Texture tex, boolean isStatic) {
+        GameObject go = new GameObject("test", new Transform(x, y, SPRITE_SIZE, SPRITE_SIZE), 0);
+        go.addComponent(new SpriteRenderer(new Sprite(tex)));
+        go.setStatic(isStatic);
+        go.start();
+        return go;
+    }
+
+    private void renderFrame(Renderer renderer) {
+        device.resetCounters();
+        renderer.render(camera);
+    }
+
+    @Test
+    void spritesSharingTexturesAreDrawnInOneBatch() {
+        Renderer renderer = new Renderer();
+        Texture[] textures = {texture("a"), texture("b"), texture("c")};
+        for (int i=0; i< 30; i++) {
+            renderer.add(gameObject(i * SPRITE_SIZE, 0, textures[i % textures.length], false));
+        }
+        renderFrame(renderer);
+
+        assertEquals(1, renderer.getNumBatches());
+        assertEquals(1, renderer.getDrawCalls());
+        assertEquals(1, device.getDrawCalls());
+        assertEquals(30, renderer.getSpritesDrawn());
+    }
+
+    @Test
+    void textureSlotsLimitSpritesPerBatch() {
+        Renderer renderer = new Renderer();
+        // one more texture than a batch has slots for
+        for (int i=0; i< 9; i++) {
+            renderer.add(gameObject(i * SPRITE_SIZE, 0, texture("t" + i), false));
+        }
+        renderFrame(renderer);
+
+        assertEquals(2, renderer.getNumBatches());
+        assertEquals(2, device.getDrawCalls());
+    }
+
+    @Test
+    void staticBatchIsUploadedOnce() {
+        Renderer renderer = new Renderer();
+        Texture tex = texture("ground");
+        for (int i=0; i< 20; i++) {
+            renderer.add(gameObject(i * SPRITE_SIZE, 0, tex, true));
+        }
+        renderFrame(renderer);
+        assertTrue(renderer.getBytesUploaded() > 0);
+        assertTrue(device.getBytesUploaded() > 0);
+
+        for (int frame=0; frame< 3; frame++) {
+            renderFrame(renderer);
+            assertEquals(0, renderer.getBytesUploaded());
+            assertEquals(0, device.getBytesUploaded());
+            assertEquals(1, device.getDrawCalls());
+        }
+    }
+
+    @Test
+    void movedSpriteIsUploadedAgain() {
+        Renderer renderer = new Renderer();
+        GameObject go = gameObject(0, 0, texture("a"), false);
+        renderer.add(go);
+        renderFrame(renderer);
+        renderFrame(renderer);
+        assertEquals(0, renderer.getBytesUploaded());
+
+        SpriteRenderer spr = go.getComponent(SpriteRenderer.class);
+        spr.applyState(1, false, 100, 0, SPRITE_SIZE, SPRITE_SIZE, 1, 1, 1, 1, spr.getSprite());
+        renderFrame(renderer);
+        assertTrue(renderer.getBytesUploaded() > 0);
+    }
+
+    @Test
+    void cullingSkipsSpritesOutsideOfView() {
+        Texture tex = texture("a");
+        Renderer culled = new Renderer();
+        Renderer unculled = new Renderer();
+        unculled.setCulling(false);
+        for (int i=0; i< 100; i++) {
+            // every other sprite is far away from camera
+            float x = (i % 2 == 0) ? i * SPRITE_SIZE / 4 : 100000 + i * SPRITE_SIZE;
+            culled.add(gameObject(x, 0, tex, false));
+            unculled.add(gameObject(x, 0, tex, false));
+        }
+
+        renderFrame(unculled);
+        long allElements = device.getElementsDrawn();
+        assertEquals(100, unculled.getSpritesDrawn());
+
+        renderFrame(culled);
+        assertEquals(50, culled.getVisibleSprites());
+        assertEquals(50, culled.getCulledSprites());
+        assertEquals(50, culled.getSpritesDrawn());
+        assertTrue(device.getElementsDrawn() < allElements);
+        assertEquals(allElements / 2, device.getElementsDrawn());
+    }
+
+    @Test
+    void sceneIsDrawnThroughSnapshots() {
+        Texture tex = texture("a");
+        TestScene scene = new TestScene();
+        for (int i=0; i< 10; i++) {
+            scene.addGameObjectToScene(gameObject(i * SPRITE_SIZE, 0, tex, false));
+        }
+        scene.start();
+        device.resetCounters();
+        scene.render();
+        assertEquals(1, device.getDrawCalls());
+        assertEquals(10, scene.renderer().getSpritesDrawn());
+
+        // nothing changed, nothing to upload
+        scene.publishSnapshot(1);
+        scene.applySnapshot();
+        device.resetCounters();
+        scene.render();
+        assertEquals(0, device.getBytesUploaded());
+
+        scene.removeGameObjectFromScene(scene.first());
+        scene.publishSnapshot(2);
+        scene.applySnapshot();
+        device.resetCounters();
+        scene.render();
+        assertEquals(9, scene.renderer().getSpritesDrawn());
+        assertEquals(1, device.getDrawCalls());
+    }
+
+    @Test
+    void releasedPooledObjectsAreNotDrawnWithoutCulling() {
+        Renderer renderer = new Renderer();
+        renderer.setCulling(false);
+        assertPooledSpritesDrawn(renderer, 6 * 6);
+    }
+
+    @Test
+    void releasedPooledObjectsAreNotDrawnByInstancedBatch() {
+        assertPooledSpritesDrawn(new Renderer(StreamingMode.SUB_DATA, true), 6 * 6);
+    }
+
+    @Test
+    void releasedPooledObjectsAreNotCulledIn() {
+        assertPooledSpritesDrawn(new Renderer(), 6 * 6);
+    }
+
+    /*
+    * 10 pooled game objects, 4 of them released: only 6 are drawn, and 8 after 2 are acquired again.
+    * */
+    private void assertPooledSpritesDrawn(Renderer renderer, long elementsPerSixSprites) {
+        Texture tex = texture("a");
+        Prefab prefab = () -> gameObject(0, 0, tex, false);
+        TestScene scene = new TestScene(renderer);
+        GameObject[] spawned = new GameObject[10];
+        for (int i=0; i< spawned.length; i++) {
+            spawned[i] = scene.acquire(prefab);
+            spawned[i].transform.setPosition(i * SPRITE_SIZE, 0);
+        }
+        scene.start();
+        for (int i=0; i< 4; i++) {
+            scene.release(spawned[i * 2]);
+        }
+        scene.publishSnapshot(1);
+        scene.applySnapshot();
+        device.resetCounters();
+        scene.render();
+        assertEquals(6, renderer.getSpritesDrawn());
+        assertEquals(elementsPerSixSprites, device.getElementsDrawn());
+
+        scene.acquire(prefab).transform.setPosition(0, 0);
+        scene.acquire(prefab).transform.setPosition(2 * SPRITE_SIZE, 0);
+        scene.publishSnapshot(2);
+        scene.applySnapshot();
+        device.resetCounters();
+        scene.render();
+        assertEquals(8, renderer.getSpritesDrawn());
+        assertEquals(elementsPerSixSprites / 6 * 8, device.getElementsDrawn());
+    }
+
+    private static class TestScene extends Scene {
+        TestScene() {
+            camera = new Camera(new Vector2f(0, 0));
+        }
+
+        TestScene(Renderer renderer) {
+            this();
+            this.renderer = renderer;
+        }
+
+        GameObject first() {
+            return gameObjects.get(0);
+        }
+
+        @Override
+        public void update(float dt) {
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VertexLayoutTest {
+    @Test
+    void packedSpriteVertexIsTwentyBytes() {
+        assertEquals(20, VertexLayout.SPRITE_PACKED.getStride());
+        assertEquals(36, VertexLayout.SPRITE_FLOAT.getStride());
+    }
+
+    @Test
+    void packedTexIdHoldsTextureArrayLayersAbove255() {
+        VertexLayout layout = VertexLayout.SPRITE_PACKED;
+        ByteBuffer vertices = ByteBuffer.allocate(layout.getStride() * 2).order(ByteOrder.nativeOrder());
+        VertexAttribute texId = layout.get(3);
+        // layer 300 of texture array is stored as 301, 0 means no texture
+        texId.put(vertices, layout.getStride(), 0, 301);
+
+        int stored = vertices.getShort(layout.getStride() + texId.getOffset()) & 0xffff;
+        assertEquals(301, stored);
+    }
+}
@@ -0,0 +1,47 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongMapTest {
+    @Test
+    void behavesLikeHashMapUnderRandomPutsAndRemoves() {
+        LongMap<Integer> map = new LongMap<>();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i=0; i< 200_000; i++) {
+            // grid cell keys: x in high half, y in low half, both small and possibly negative
+            long key = ((long)(random.nextInt(64) - 32) << 32) | ((random.nextInt(64) - 32) & 0xffffffffL);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long x = -32; x < 32; x++) {
+            for (long y = -32; y < 32; y++) {
+                long key = (x << 32) | (y & 0xffffffffL);
+                assertEquals(expected.get(key), map.get(key));
+            }
+        }
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        LongMap<String> map = new LongMap<>();
+        for (long i=0; i< 1000; i++) {
+            map.put(i, "v" + i);
+        }
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(5));
+    }
+}